@@ -1,7 +1,10 @@
 package com.app.controller;
 
 import com.app.service.EntityService;
+import com.app.util.Allowlist;
+import com.app.util.CsvTokenizer;
 import com.app.util.Sanitizer;
+import com.app.web.BufferedResponseWriter;
 import javax.servlet.http.*;
 import java.io.*;
 import java.sql.SQLException;
@@ -18,9 +21,18 @@ public class BatchController extends HttpServlet {
     private static final int MAX_PAGES = 50;
     private static final int MAX_ROWS = 25;
 
+    public BatchController() {
+    }
+
+    public BatchController(EntityService entityService) {
+        this.entityService = entityService;
+    }
+
     public enum PageSize { SMALL(10), MEDIUM(25), LARGE(50);
+        private static final Allowlist<PageSize> NAMES = Allowlist.forEnum(values());
         final int value; PageSize(int v) { this.value = v; }
         public int getValue() { return value; }
+        public static PageSize lookup(CharSequence name) { return NAMES.get(name); }
     }
 
     /*
@@ -36,8 +48,13 @@ public class BatchController extends HttpServlet {
     public void processPages(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int pages = Sanitizer.toInt(req.getParameter("pages"));
         int bounded = pages > MAX_PAGES ? MAX_PAGES : pages;
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<div>Page " + i + "</div>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<div>Page ");
+                out.print(i);
+                out.write("</div>");
+            }
+            out.finish();
         }
     }
 
@@ -53,8 +70,13 @@ public class BatchController extends HttpServlet {
     public void processModulo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = input % MAX_ITEMS;
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<li>" + i + "</li>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<li>");
+                out.print(i);
+                out.write("</li>");
+            }
+            out.finish();
         }
     }
 
@@ -70,8 +92,13 @@ public class BatchController extends HttpServlet {
     public void processBitwise(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = input & 0x3F;  // Max 63
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<span>" + i + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<span>");
+                out.print(i);
+                out.write("</span>");
+            }
+            out.finish();
         }
     }
 
@@ -86,15 +113,20 @@ public class BatchController extends HttpServlet {
     public void processShift(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = (input >>> 4) & 0x0F;  // Max 15
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<span>" + i + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<span>");
+                out.print(i);
+                out.write("</span>");
+            }
+            out.finish();
         }
     }
 
     /*
      * #L05 - FALSE POSITIVE: Enum value bounds the loop
-     * WHY SAFE: PageSize.valueOf() only accepts SMALL(10), MEDIUM(25), LARGE(50).
-     *           Invalid input throws exception before reaching loop.
+     * WHY SAFE: PageSize.lookup() only accepts SMALL(10), MEDIUM(25), LARGE(50).
+     *           Invalid input gets a 400 before reaching loop.
      *           Maximum iterations = 50 (LARGE enum value).
      * WHY CXQL FAILS: CxQL cannot analyze enum validation for loop bounding.
      *                 It doesn't recognize that getValue() returns compile-time constants.
@@ -102,9 +134,18 @@ public class BatchController extends HttpServlet {
      */
     public void processEnumBound(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("size");
-        PageSize size = PageSize.valueOf(input.toUpperCase());
-        for (int i = 0; i < size.getValue(); i++) {
-            resp.getWriter().write("<div>" + i + "</div>");
+        PageSize size = PageSize.lookup(input);
+        if (size == null) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < size.getValue(); i++) {
+                out.write("<div>");
+                out.print(i);
+                out.write("</div>");
+            }
+            out.finish();
         }
     }
 
@@ -119,24 +160,34 @@ public class BatchController extends HttpServlet {
     public void processEnumLength(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("count"));
         int bounded = input % PageSize.values().length;
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<span>" + i + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<span>");
+                out.print(i);
+                out.write("</span>");
+            }
+            out.finish();
         }
     }
 
     /*
      * #L07 - FALSE POSITIVE: Array length with MAX_ROWS bound
-     * WHY SAFE: Compound condition (i < parts.length && i < MAX_ROWS).
-     *           Loop limited to minimum of array size and MAX_ROWS (25).
-     *           Even large input arrays only iterate 25 times.
+     * WHY SAFE: Compound condition (parts.next() && i < MAX_ROWS).
+     *           Loop limited to minimum of field count and MAX_ROWS (25).
+     *           Even long input lists only iterate 25 times.
      * WHY CXQL FAILS: CxQL may not fully analyze compound && conditions in loops.
      *                 It might miss that MAX_ROWS provides an upper bound.
      * CXQL LIMITATION: Compound loop conditions not fully analyzed.
      */
     public void processArrayBound(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String[] parts = req.getParameter("data").split(",");
-        for (int i = 0; i < parts.length && i < MAX_ROWS; i++) {
-            resp.getWriter().write("<tr><td>" + Sanitizer.escapeHtml(parts[i]) + "</td></tr>");
+        CsvTokenizer parts = new CsvTokenizer(req.getParameter("data"), ',', MAX_ROWS);
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; parts.next() && i < MAX_ROWS; i++) {
+                out.write("<tr><td>");
+                parts.appendFieldHtml(out);
+                out.write("</td></tr>");
+            }
+            out.finish();
         }
     }
 
@@ -151,11 +202,16 @@ public class BatchController extends HttpServlet {
     public void processStringLength(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("text");
         int length = Math.min(input.length(), MAX_ITEMS);
-        for (int i = 0; i < length; i++) {
-            char c = input.charAt(i);
-            if (Character.isLetterOrDigit(c)) {
-                resp.getWriter().write("<span>" + c + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < length; i++) {
+                char c = input.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    out.write("<span>");
+                    out.write(c);
+                    out.write("</span>");
+                }
             }
+            out.finish();
         }
     }
 
@@ -171,8 +227,13 @@ public class BatchController extends HttpServlet {
     public void processNestedTernary(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = input < 0 ? 0 : (input > MAX_ITEMS ? MAX_ITEMS : input);
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<li>" + i + "</li>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<li>");
+                out.print(i);
+                out.write("</li>");
+            }
+            out.finish();
         }
     }
 
@@ -187,8 +248,13 @@ public class BatchController extends HttpServlet {
     public void processCompoundModulo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = (input % 1000) % MAX_ITEMS;  // Max 99
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<span>" + i + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<span>");
+                out.print(i);
+                out.write("</span>");
+            }
+            out.finish();
         }
     }
 
@@ -203,8 +269,13 @@ public class BatchController extends HttpServlet {
     public void processIntegerMin(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("count"));
         int bounded = Integer.min(input, MAX_ITEMS);
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<div>" + i + "</div>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<div>");
+                out.print(i);
+                out.write("</div>");
+            }
+            out.finish();
         }
     }
 
@@ -219,8 +290,13 @@ public class BatchController extends HttpServlet {
     public void processClamp(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int clamped = Math.max(0, Math.min(input, MAX_ROWS));
-        for (int i = 0; i < clamped; i++) {
-            resp.getWriter().write("<tr><td>" + i + "</td></tr>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < clamped; i++) {
+                out.write("<tr><td>");
+                out.print(i);
+                out.write("</td></tr>");
+            }
+            out.finish();
         }
     }
 
@@ -235,8 +311,13 @@ public class BatchController extends HttpServlet {
     public void processXorBound(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = (input ^ 0xFF) & 0x1F;  // Max 31
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<span>" + i + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<span>");
+                out.print(i);
+                out.write("</span>");
+            }
+            out.finish();
         }
     }
 
@@ -252,8 +333,13 @@ public class BatchController extends HttpServlet {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = Math.abs(input) / 100;  // Large divisor limits result
         int limited = Math.min(bounded, MAX_ROWS);
-        for (int i = 0; i < limited; i++) {
-            resp.getWriter().write("<div>" + i + "</div>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < limited; i++) {
+                out.write("<div>");
+                out.print(i);
+                out.write("</div>");
+            }
+            out.finish();
         }
     }
 
@@ -268,8 +354,13 @@ public class BatchController extends HttpServlet {
     public void processAbsModulo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int input = Sanitizer.toInt(req.getParameter("value"));
         int bounded = Math.abs(input) % MAX_ITEMS;
-        for (int i = 0; i < bounded; i++) {
-            resp.getWriter().write("<span>" + i + "</span>");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+            for (int i = 0; i < bounded; i++) {
+                out.write("<span>");
+                out.print(i);
+                out.write("</span>");
+            }
+            out.finish();
         }
     }
 }
@@ -6,10 +6,17 @@ import com.app.model.Entity;
 import com.app.model.Account;
 import com.app.repository.EntityRepository;
 import com.app.repository.AccountRepository;
+import com.app.util.CsvTokenizer;
+import com.app.util.HtmlTemplate;
+import com.app.util.ParsedNumber;
+import com.app.web.JdbcBound;
 import javax.servlet.http.*;
 import java.io.*;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -17,11 +24,34 @@ import java.util.Optional;
  * All scenarios are SAFE but CxQL may incorrectly flag them
  * Pattern: 4+ layer cross-file data flows with type-safe transformations
  */
+@JdbcBound
 public class ComplexController extends HttpServlet {
 
     private EntityRepository entityRepo;
     private AccountRepository accountRepo;
 
+    private static final HtmlTemplate SPAN_NUMBER = HtmlTemplate.compile("<span>{long}</span>");
+    private static final HtmlTemplate STATUS_DIV = HtmlTemplate.compile("<div class=\"status-{int}\">{int}</div>");
+    private static final HtmlTemplate BALANCE_SPAN = HtmlTemplate.compile("<span>${double:2}</span>");
+    private static final HtmlTemplate TIER_SPAN = HtmlTemplate.compile("<span>Tier: {int}</span>");
+    private static final HtmlTemplate CODE = HtmlTemplate.compile("<code>{int}</code>");
+
+    private static final int MAX_BATCH = 100;
+    private static final HtmlTemplate BATCH_OPEN = HtmlTemplate.compile("<ul class=\"batch\">");
+    private static final HtmlTemplate BATCH_CLOSE = HtmlTemplate.compile("</ul>");
+    private static final HtmlTemplate BATCH_ITEM = HtmlTemplate.compile("<li data-id=\"{long}\">");
+    private static final HtmlTemplate BATCH_ITEM_CLOSE = HtmlTemplate.compile("</li>");
+    private static final HtmlTemplate BATCH_MISSING = HtmlTemplate.compile("<li data-id=\"{long}\" class=\"error\">not found</li>");
+    private static final HtmlTemplate BATCH_INVALID = HtmlTemplate.compile("<li data-index=\"{int}\" class=\"error\">invalid id</li>");
+
+    public ComplexController() {
+    }
+
+    public ComplexController(EntityRepository entityRepo, AccountRepository accountRepo) {
+        this.entityRepo = entityRepo;
+        this.accountRepo = accountRepo;
+    }
+
     /*
      * #C01 - FALSE POSITIVE: 4-layer flow returning numeric ID
      * WHY SAFE: Flow: Request -> Transformer (Long.parseLong) -> Repository -> Processor -> Output
@@ -36,7 +66,7 @@ public class ComplexController extends HttpServlet {
         long inputId = Transformer.stringToLong(req.getParameter("id"));
         Optional<Entity> entity = entityRepo.findById(inputId);
         long outputId = Processor.extractEntityId(Processor.unwrap(entity));
-        resp.getWriter().write("<span>" + outputId + "</span>");
+        SPAN_NUMBER.render(resp.getOutputStream(), outputId);
     }
 
     /*
@@ -52,7 +82,7 @@ public class ComplexController extends HttpServlet {
         long inputId = Transformer.stringToLong(req.getParameter("id"));
         Optional<Entity> entity = entityRepo.findById(inputId);
         int status = Processor.extractEntityStatus(Processor.unwrap(entity));
-        resp.getWriter().write("<div class=\"status-" + status + "\">" + status + "</div>");
+        STATUS_DIV.render(resp.getOutputStream(), status, status);
     }
 
     /*
@@ -74,9 +104,9 @@ public class ComplexController extends HttpServlet {
     /*
      * #C04 - FALSE POSITIVE: 4-layer flow returning double
      * WHY SAFE: extractEntityBalance() returns Entity.balance which is a double.
-     *           Double primitives formatted with %.2f produce only numeric output.
+     *           Double primitives rendered with two fixed decimals produce only numeric output.
      *           XSS requires control characters which double cannot contain.
-     * WHY CXQL FAILS: CxQL may not analyze String.format pattern for safety.
+     * WHY CXQL FAILS: CxQL may not analyze the numeric template slot for safety.
      *                 It sees DB data flowing to output but misses double type.
      * CXQL LIMITATION: Double/formatted numeric output not analyzed.
      */
@@ -84,7 +114,7 @@ public class ComplexController extends HttpServlet {
         long inputId = Transformer.stringToLong(req.getParameter("id"));
         Optional<Entity> entity = entityRepo.findById(inputId);
         double balance = Processor.extractEntityBalance(Processor.unwrap(entity));
-        resp.getWriter().write("<span>$" + String.format("%.2f", balance) + "</span>");
+        BALANCE_SPAN.render(resp.getOutputStream()).value(balance).finish();
     }
 
     /*
@@ -99,7 +129,7 @@ public class ComplexController extends HttpServlet {
     public void collectionFlowId(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         List<Entity> entities = entityRepo.findAll();
         long id = Processor.getIdFromFirst(entities);
-        resp.getWriter().write("<span>" + id + "</span>");
+        SPAN_NUMBER.render(resp.getOutputStream(), id);
     }
 
     /*
@@ -112,7 +142,7 @@ public class ComplexController extends HttpServlet {
     public void collectionFlowStatus(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         List<Entity> entities = entityRepo.findAll();
         int status = Processor.getStatusFromFirst(entities);
-        resp.getWriter().write("<span>" + status + "</span>");
+        SPAN_NUMBER.render(resp.getOutputStream(), status);
     }
 
     /*
@@ -128,7 +158,7 @@ public class ComplexController extends HttpServlet {
         List<Entity> entities = entityRepo.findAll();
         List<Long> ids = entities.stream().map(Entity::getId).collect(java.util.stream.Collectors.toList());
         Long firstId = Transformer.getFirst(ids);
-        resp.getWriter().write("<span>" + (firstId != null ? firstId : 0) + "</span>");
+        SPAN_NUMBER.render(resp.getOutputStream(), firstId != null ? firstId : 0);
     }
 
     /*
@@ -161,7 +191,7 @@ public class ComplexController extends HttpServlet {
         long inputId = Transformer.stringToLong(req.getParameter("id"));
         Optional<Account> account = accountRepo.findById(inputId);
         int tier = Processor.extractAccountTier(Processor.unwrap(account));
-        resp.getWriter().write("<span>Tier: " + tier + "</span>");
+        TIER_SPAN.render(resp.getOutputStream(), tier);
     }
 
     /*
@@ -208,7 +238,106 @@ public class ComplexController extends HttpServlet {
         long inputId = Transformer.stringToLong(req.getParameter("id"));
         Optional<Entity> entity = entityRepo.findById(inputId);
         int code = entity.map(Entity::getCode).orElse(0);
-        resp.getWriter().write("<code>" + code + "</code>");
+        CODE.render(resp.getOutputStream(), code);
+    }
+
+    /*
+     * #C13 - FALSE POSITIVE: Batch of numeric IDs from a comma-separated parameter
+     * WHY SAFE: Each field of "ids" is parsed to a long by CsvTokenizer.parseLong().
+     *           Unparsable fields are reported by their position only, never echoed.
+     *           Each row prints the id and Entity.id as longs - numbers only.
+     * WHY CXQL FAILS: CxQL sees the raw parameter flowing through a tokenizer into output.
+     *                 It cannot tell that only parsed long values reach the response.
+     * CXQL LIMITATION: Index-based field parsing not recognized as type conversion.
+     */
+    public void deepFlowNumericBatch(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        renderBatch(req, resp, (out, entity) -> SPAN_NUMBER.render(out, Processor.extractEntityId(entity)));
+    }
+
+    /*
+     * #C14 - FALSE POSITIVE: Batch of integer statuses
+     * WHY SAFE: Same id parsing as C13; each row prints Entity.status, an int from the DB.
+     *           Missing entities produce a fixed "not found" row keyed by the parsed long.
+     * WHY CXQL FAILS: CxQL cannot track the int type through the per-row callback.
+     * CXQL LIMITATION: Lambda parameters lose the type of the extracted DB field.
+     */
+    public void deepFlowStatusBatch(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        renderBatch(req, resp, (out, entity) -> {
+            int status = Processor.extractEntityStatus(entity);
+            STATUS_DIV.render(out, status, status);
+        });
+    }
+
+    /*
+     * #C15 - FALSE POSITIVE: Batch of entity codes
+     * WHY SAFE: Entity.getCode() is derived from the numeric id (id % 1000) - an int.
+     *           Output per row is only the parsed id and the int code.
+     * WHY CXQL FAILS: Same as C12 and C13 - method reference and tokenizer flows not typed.
+     * CXQL LIMITATION: Type inference lost through batch rendering helper.
+     */
+    public void chainedMethodsBatch(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        renderBatch(req, resp, (out, entity) -> CODE.render(out, entity.getCode()));
+    }
+
+    private interface BatchRow {
+        void render(OutputStream out, Entity entity) throws IOException;
+    }
+
+    // Parses up to MAX_BATCH ids from "ids", loads them in one repository call and streams
+    // one <li> per requested id in request order: the row, or an error for that id.
+    private void renderBatch(HttpServletRequest req, HttpServletResponse resp, BatchRow row) throws IOException, SQLException {
+        CsvTokenizer fields = new CsvTokenizer(req.getParameter("ids"), ',', MAX_BATCH + 1);
+        long[] ids = new long[MAX_BATCH];
+        boolean[] valid = new boolean[MAX_BATCH];
+        ParsedNumber parsed = new ParsedNumber();
+        int n = 0;
+        while (fields.next()) {
+            if (n == MAX_BATCH) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "At most " + MAX_BATCH + " ids per batch");
+                return;
+            }
+            valid[n] = fields.parseLong(parsed);
+            ids[n] = valid[n] ? parsed.longValue() : 0;
+            n++;
+        }
+
+        long[] wanted = distinctValid(ids, valid, n);
+        Map<Long, Entity> byId = new HashMap<>(wanted.length * 2);
+        for (Entity e : entityRepo.findByIds(wanted)) {
+            byId.put(e.getId(), e);
+        }
+
+        OutputStream out = resp.getOutputStream();
+        BATCH_OPEN.render(out).finish();
+        for (int i = 0; i < n; i++) {
+            if (!valid[i]) {
+                BATCH_INVALID.render(out, i);
+                continue;
+            }
+            Entity entity = byId.get(ids[i]);
+            if (entity == null) {
+                BATCH_MISSING.render(out, ids[i]);
+                continue;
+            }
+            BATCH_ITEM.render(out, ids[i]);
+            row.render(out, entity);
+            BATCH_ITEM_CLOSE.render(out).finish();
+        }
+        BATCH_CLOSE.render(out).finish();
+    }
+
+    private static long[] distinctValid(long[] ids, boolean[] valid, int n) {
+        long[] wanted = new long[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (valid[i]) wanted[count++] = ids[i];
+        }
+        Arrays.sort(wanted, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || wanted[i] != wanted[distinct - 1]) wanted[distinct++] = wanted[i];
+        }
+        return Arrays.copyOf(wanted, distinct);
     }
 }
 
@@ -1,21 +1,35 @@
 package com.app.controller;
 
 import com.app.service.AccountService;
+import com.app.service.HashingService;
+import com.app.util.PasswordScorer;
 import com.app.util.Sanitizer;
+import com.app.util.TextKernel;
+import com.app.web.JdbcBound;
 import javax.servlet.http.*;
 import java.io.*;
+import java.security.SecureRandom;
 import java.sql.SQLException;
-import java.security.MessageDigest;
-import java.util.Base64;
 
 /**
  * Privacy Violation False Positive Scenarios
  * All scenarios are SAFE but CxQL incorrectly flags them
  * Pattern: PII data -> Transformation -> Output (not exposing actual PII)
  */
+@JdbcBound
 public class DataController extends HttpServlet {
 
     private AccountService accountService;
+    private static final HashingService HASHING = new HashingService();
+    // Keyed per process: pseudonyms correlate within a run and are meaningless without the key
+    private static final HashingService PSEUDONYMS = new HashingService(randomKey(), 10_000);
+
+    public DataController() {
+    }
+
+    public DataController(AccountService accountService) {
+        this.accountService = accountService;
+    }
 
     /*
      * #P01 - FALSE POSITIVE: Masked SSN output
@@ -62,23 +76,23 @@ public class DataController extends HttpServlet {
     public void logSsnChecksum(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
         String ssn = accountService.getSsn(id);
-        int checksum = calculateLuhnChecksum(ssn.replaceAll("-", ""));
+        int checksum = calculateLuhnChecksum(ssn);
         System.out.println("Checksum: " + checksum);
     }
 
     /*
      * #P04 - FALSE POSITIVE: Hashed SSN output
-     * WHY SAFE: SHA-256 is a cryptographic one-way hash function.
-     *           Original SSN cannot be recovered from hash output.
-     *           This is standard practice for storing/comparing sensitive data.
-     * WHY CXQL FAILS: CxQL sees SSN variable flowing to output (System.out).
+     * WHY SAFE: HMAC-SHA256 under a secret key is a cryptographic one-way hash.
+     *           Original SSN cannot be recovered from hash output, and unlike a plain
+     *           digest the small SSN space cannot be enumerated without the key.
+     *           Repeat lookups are answered from a memo that holds only the HMAC.
+     * WHY CXQL FAILS: CxQL sees the SSN read by AccountService flowing to output (System.out).
      *                 It cannot determine that hash destroys original value.
      * CXQL LIMITATION: Cryptographic hashing not recognized as PII sanitizer.
      */
     public void logHashedSsn(HttpServletRequest req, HttpServletResponse resp) throws Exception {
         long id = Sanitizer.toLong(req.getParameter("id"));
-        String ssn = accountService.getSsn(id);
-        String hashed = hashSha256(ssn);
+        String hashed = accountService.getSsnPseudonym(id, PSEUDONYMS);
         System.out.println("SSN hash: " + hashed);
     }
 
@@ -253,38 +267,35 @@ public class DataController extends HttpServlet {
     public void logNameInitials(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
         String name = accountService.getFullName(id);
-        String[] parts = name.split(" ");
-        StringBuilder initials = new StringBuilder();
-        for (String part : parts) {
-            if (!part.isEmpty()) initials.append(part.charAt(0));
-        }
-        System.out.println("Initials: " + initials.toString().toUpperCase());
+        char[] initials = new char[(name.length() + 1) / 2];
+        int count = TextKernel.initials(name, ' ', initials, 0);
+        System.out.println("Initials: " + new String(initials, 0, count).toUpperCase());
     }
 
     // Helper methods
+    // Sums Character.getNumericValue of every char but '-', so letters still count 10-35 and
+    // other separators -1; TextKernel.digitSum would skip them and change the checksum.
     private int calculateLuhnChecksum(String number) {
         int sum = 0;
         for (int i = 0; i < number.length(); i++) {
-            int digit = Character.getNumericValue(number.charAt(i));
-            sum += digit;
+            char c = number.charAt(i);
+            if (c != '-') sum += Character.getNumericValue(c);
         }
         return sum % 10;
     }
 
     private String hashSha256(String input) throws Exception {
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] hash = md.digest(input.getBytes());
-        return Base64.getEncoder().encodeToString(hash);
+        return HASHING.digestBase64(input);
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
     }
 
     private int calculatePasswordStrength(String password) {
-        if (password == null) return 0;
-        int score = 0;
-        if (password.length() >= 8) score++;
-        if (password.matches(".*[A-Z].*")) score++;
-        if (password.matches(".*[0-9].*")) score++;
-        if (password.matches(".*[!@#$%^&*].*")) score++;
-        return score;
+        return PasswordScorer.DEFAULT.score(password);
     }
 
     private String detectCardType(String cardNumber) {
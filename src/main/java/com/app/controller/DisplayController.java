@@ -2,11 +2,18 @@ package com.app.controller;
 
 import com.app.service.EntityService;
 import com.app.service.AccountService;
+import com.app.util.Allowlist;
+import com.app.util.ByteEncoders;
+import com.app.util.JsonWriter;
 import com.app.util.Sanitizer;
+import com.app.util.TextKernel;
+import com.app.util.Validators;
+import com.app.web.ConditionalGet;
+import com.app.web.FragmentCache;
+import com.app.web.JdbcBound;
 import javax.servlet.http.*;
 import java.io.*;
 import java.sql.SQLException;
-import java.util.regex.Pattern;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
@@ -15,11 +22,20 @@ import java.nio.charset.StandardCharsets;
  * All scenarios are SAFE but CxQL incorrectly flags them
  * Pattern: DB data -> Sanitization -> Output
  */
+@JdbcBound
 public class DisplayController extends HttpServlet {
 
     private EntityService entityService;
     private AccountService accountService;
-    private static final Pattern SAFE_CHARS = Pattern.compile("^[a-zA-Z0-9_\\s-]+$");
+    private static final FragmentCache FRAGMENTS = new FragmentCache(4L << 20);
+
+    public DisplayController() {
+    }
+
+    public DisplayController(EntityService entityService, AccountService accountService) {
+        this.entityService = entityService;
+        this.accountService = accountService;
+    }
 
     /*
      * #X01 - FALSE POSITIVE: Database string escaped through custom escaper
@@ -33,6 +49,7 @@ public class DisplayController extends HttpServlet {
      */
     public void renderEntityName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String name = entityService.getEntityName(id);
         String escaped = Sanitizer.escapeHtml(name);
         resp.getWriter().write("<span>" + escaped + "</span>");
@@ -49,24 +66,26 @@ public class DisplayController extends HttpServlet {
      */
     public void renderCleanedName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String name = entityService.getEntityName(id);
         String cleaned = name.replaceAll("[^a-zA-Z0-9 ]", "");
         resp.getWriter().write("<div>" + cleaned + "</div>");
     }
 
     /*
-     * #X03 - FALSE POSITIVE: Database string with regex validation guard
-     * WHY SAFE: Pattern ^[a-zA-Z0-9_\\s-]+$ only allows safe characters.
+     * #X03 - FALSE POSITIVE: Database string with character-class validation guard
+     * WHY SAFE: Validators.isSafeText (^[a-zA-Z0-9_\\s-]+$) only allows safe characters.
      *           If DB content contains XSS characters, it fails validation.
      *           Output only happens when content is confirmed safe.
-     * WHY CXQL FAILS: CxQL does not analyze Pattern.matcher() guard conditions.
+     * WHY CXQL FAILS: CxQL does not analyze custom validator guard conditions.
      *                 It cannot determine that the if-condition ensures safe content.
-     * CXQL LIMITATION: Regex validation guards not recognized for Stored XSS.
+     * CXQL LIMITATION: Character-class validation guards not recognized for Stored XSS.
      */
     public void renderValidatedDescription(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String desc = entityService.getEntityDescription(id);
-        if (SAFE_CHARS.matcher(desc).matches()) {
+        if (Validators.isSafeText(desc)) {
             resp.getWriter().write("<p>" + desc + "</p>");
         }
     }
@@ -82,6 +101,7 @@ public class DisplayController extends HttpServlet {
      */
     public void renderUrlEncodedName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String name = entityService.getEntityName(id);
         String encoded = URLEncoder.encode(name, StandardCharsets.UTF_8.toString());
         resp.getWriter().write("<a href=\"/entity?name=" + encoded + "\">View</a>");
@@ -98,6 +118,7 @@ public class DisplayController extends HttpServlet {
      */
     public void renderMaskedName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String name = entityService.getEntityName(id);
         String masked = Sanitizer.mask(name, 3);
         resp.getWriter().write("<span>" + masked + "</span>");
@@ -113,6 +134,7 @@ public class DisplayController extends HttpServlet {
      */
     public void renderTruncatedName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String name = entityService.getEntityName(id);
         String truncated = name.length() > 20 ? name.substring(0, 20) : name;
         String escaped = Sanitizer.escapeHtml(truncated);
@@ -120,18 +142,20 @@ public class DisplayController extends HttpServlet {
     }
 
     /*
-     * #X07 - FALSE POSITIVE: Database string validated via Enum.valueOf
-     * WHY SAFE: Enum.valueOf() only accepts exact matches to enum constants.
-     *           If DB contains "<script>", it throws IllegalArgumentException.
+     * #X07 - FALSE POSITIVE: Database string validated via enum lookup
+     * WHY SAFE: EntityType.lookup() only matches the names of the enum constants.
+     *           If DB contains "<script>", it returns null and nothing is written.
      *           type.name() returns only predefined constant names.
-     * WHY CXQL FAILS: CxQL cannot determine that Enum.valueOf() restricts values.
+     * WHY CXQL FAILS: CxQL cannot determine that the enum lookup restricts values.
      *                 It sees data flow from DB to output without recognizing enum validation.
-     * CXQL LIMITATION: Enum.valueOf() not recognized as type-safe validation.
+     * CXQL LIMITATION: Allowlist-backed enum lookup not recognized as type-safe validation.
      */
     public void renderEntityType(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String typeStr = entityService.getEntityType(id);
-        EntityType type = EntityType.valueOf(typeStr.toUpperCase());
+        EntityType type = EntityType.lookup(typeStr);
+        if (type == null) return;
         resp.getWriter().write("<span class=\"type-" + type.name() + "\">" + type.name() + "</span>");
     }
 
@@ -146,6 +170,7 @@ public class DisplayController extends HttpServlet {
      */
     public void renderEntityCategory(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String category = entityService.getEntityCategory(id);
         java.util.Set<String> allowed = java.util.Set.of("product", "service", "subscription");
         if (allowed.contains(category.toLowerCase())) {
@@ -155,23 +180,23 @@ public class DisplayController extends HttpServlet {
 
     /*
      * #X09 - FALSE POSITIVE: Database string with StringBuilder character filtering
-     * WHY SAFE: Loop only appends chars passing isLetterOrDigit/space/hyphen check.
+     * WHY SAFE: appendLettersOrDigits only writes chars passing isLetterOrDigit/space/hyphen check.
      *           XSS characters < > " ' & are rejected and not included in output.
-     *           The StringBuilder result contains only safe characters.
+     *           The written text contains only safe characters.
      * WHY CXQL FAILS: CxQL cannot track conditional StringBuilder append operations.
      *                 It does not analyze loop-based character filtering.
      * CXQL LIMITATION: No support for character-by-character filtering analysis.
      */
     public void renderFilteredName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
-        String name = entityService.getEntityName(id);
-        StringBuilder sb = new StringBuilder();
-        for (char c : name.toCharArray()) {
-            if (Character.isLetterOrDigit(c) || c == ' ' || c == '-') {
-                sb.append(c);
-            }
-        }
-        resp.getWriter().write("<span>" + sb.toString() + "</span>");
+        long version = entityService.getEntityVersion(id);
+        if (ConditionalGet.notModified(req, resp, id, version)) return;
+        FRAGMENTS.render(resp, "filtered-name", id, version, out -> {
+            String name = entityService.getEntityName(id);
+            out.write("<span>");
+            TextKernel.appendLettersOrDigits(name, " -", out);
+            out.write("</span>");
+        });
     }
 
     /*
@@ -185,6 +210,7 @@ public class DisplayController extends HttpServlet {
      */
     public void renderEntityUuid(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String uuidStr = entityService.getEntityUuid(id);
         java.util.UUID uuid = java.util.UUID.fromString(uuidStr);
         resp.getWriter().write("<span data-uuid=\"" + uuid.toString() + "\"></span>");
@@ -223,7 +249,7 @@ public class DisplayController extends HttpServlet {
 
     /*
      * #X13 - FALSE POSITIVE: Database string hex encoded
-     * WHY SAFE: Each character converted to 2-digit hex code (00-FF).
+     * WHY SAFE: Each UTF-8 byte converted to 2-digit hex code (00-ff).
      *           Output contains only [0-9a-f] characters - no XSS possible.
      *           "<" becomes "3c", ">" becomes "3e", etc.
      * WHY CXQL FAILS: CxQL cannot analyze the hex encoding loop.
@@ -232,12 +258,14 @@ public class DisplayController extends HttpServlet {
      */
     public void renderHexEncodedName(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
-        String name = entityService.getEntityName(id);
-        StringBuilder hex = new StringBuilder();
-        for (char c : name.toCharArray()) {
-            hex.append(String.format("%02x", (int) c));
-        }
-        resp.getWriter().write("<span data-name=\"" + hex.toString() + "\"></span>");
+        long version = entityService.getEntityVersion(id);
+        if (ConditionalGet.notModified(req, resp, id, version)) return;
+        FRAGMENTS.render(resp, "hex-name", id, version, out -> {
+            String name = entityService.getEntityName(id);
+            out.write("<span data-name=\"");
+            ByteEncoders.hex(name, out);
+            out.write("\"></span>");
+        });
     }
 
     /*
@@ -251,34 +279,45 @@ public class DisplayController extends HttpServlet {
      */
     public void renderBase64Name(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
-        String name = entityService.getEntityName(id);
-        String encoded = java.util.Base64.getEncoder().encodeToString(name.getBytes(StandardCharsets.UTF_8));
-        resp.getWriter().write("<span data-encoded=\"" + encoded + "\"></span>");
+        long version = entityService.getEntityVersion(id);
+        if (ConditionalGet.notModified(req, resp, id, version)) return;
+        FRAGMENTS.render(resp, "base64-name", id, version, out -> {
+            String name = entityService.getEntityName(id);
+            out.write("<span data-encoded=\"");
+            ByteEncoders.base64(name, out);
+            out.write("\"></span>");
+        });
     }
 
     /*
      * #X15 - FALSE POSITIVE: Database string JSON escaped
-     * WHY SAFE: escapeJsonString() escapes \ " and control characters for JS context.
-     *           In JavaScript string literal, this prevents string breakout attacks.
-     *           Standard approach for safely embedding data in JS strings.
+     * WHY SAFE: JsonWriter writes a JSON string literal, escaping \ " and control characters,
+     *           and < > & U+2028 U+2029 as unicode escapes, so neither the JS string nor the
+     *           enclosing script element (</script>) can be broken out of.
      * WHY CXQL FAILS: CxQL does not recognize JSON/JavaScript string escaping.
      *                 It cannot determine that the JS string context is protected.
      * CXQL LIMITATION: JSON escaping not recognized for JavaScript context XSS.
      */
     public void renderJsonContent(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
         long id = Sanitizer.toLong(req.getParameter("id"));
+        if (ConditionalGet.notModified(req, resp, id, entityService.getEntityVersion(id))) return;
         String content = entityService.getEntityContent(id);
-        String escaped = escapeJsonString(content);
-        resp.getWriter().write("<script>var data = \"" + escaped + "\";</script>");
+        PrintWriter out = resp.getWriter();
+        out.write("<script>var data = ");
+        JsonWriter json = new JsonWriter(out, 256);
+        json.value(content == null ? "" : content).flush();
+        out.write(";</script>");
     }
 
-    // Helper for JSON escaping
-    private String escapeJsonString(String input) {
-        if (input == null) return "";
-        return input.replace("\\", "\\\\").replace("\"", "\\\"")
-                    .replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+    // Writers of an entity call this to release its cached fragments right away;
+    // a version bump alone already makes them miss
+    public static void invalidateEntity(long id) {
+        FRAGMENTS.invalidate(id);
     }
 
-    public enum EntityType { PRODUCT, SERVICE, SUBSCRIPTION, CATEGORY }
+    public enum EntityType { PRODUCT, SERVICE, SUBSCRIPTION, CATEGORY;
+        private static final Allowlist<EntityType> NAMES = Allowlist.forEnum(values());
+        public static EntityType lookup(CharSequence name) { return NAMES.get(name); }
+    }
 }
 
@@ -0,0 +1,239 @@
+package com.app.controller;
+
+import com.app.model.AccountSummary;
+import com.app.model.Entity;
+import com.app.repository.AccountRepository;
+import com.app.repository.EntityRepository;
+import com.app.repository.RowHandler;
+import com.app.util.Allowlist;
+import com.app.util.CsvTokenizer;
+import com.app.util.CsvWriter;
+import com.app.util.JsonWriter;
+import com.app.util.Sanitizer;
+import com.app.web.JdbcBound;
+import javax.servlet.http.*;
+import java.io.*;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk Export False Positive Scenarios
+ * All scenarios are SAFE but CxQL may incorrectly flag them
+ * Pattern: DB cursor -> column allowlist -> NDJSON / CSV writer -> attachment
+ *
+ * Rows are read from a forward-only keyset cursor (id > after ORDER BY id) and
+ * written as they arrive, flushing to the client every FLUSH_ROWS rows, so an
+ * export costs the same memory at any table size. Parameters:
+ *   format  ndjson (default) or csv
+ *   columns comma-separated subset of the view's columns, default all of them;
+ *           the key column is always included and comes first
+ *   after   resume token: the last key received, rows after it are returned
+ *   limit   maximum number of rows, default no limit
+ * Runs on the JDBC executor with its output streamed, not buffered.
+ */
+public class ExportController extends HttpServlet {
+
+    private static final int FLUSH_ROWS = 512;
+
+    private static final Columns<Entity> ENTITY_COLUMNS = new Columns<>(
+        new Column<Entity>("id", (e, out) -> out.value(e.getId())),
+        new Column<Entity>("name", (e, out) -> out.value(e.getName())),
+        new Column<Entity>("status", (e, out) -> out.value(e.getStatus())),
+        new Column<Entity>("active", (e, out) -> out.value(e.isActive())),
+        new Column<Entity>("balance", (e, out) -> out.value(e.getBalance())),
+        new Column<Entity>("version", (e, out) -> out.value(e.getVersion())));
+
+    private static final Columns<AccountSummary> ACCOUNT_COLUMNS = new Columns<>(
+        new Column<AccountSummary>("accountId", (s, out) -> out.value(s.getAccountId())),
+        new Column<AccountSummary>("maskedSsn", (s, out) -> out.value(s.getMaskedSsn())),
+        new Column<AccountSummary>("maskedAccountNumber", (s, out) -> out.value(s.getMaskedAccountNumber())),
+        new Column<AccountSummary>("tier", (s, out) -> out.value(s.getTier())),
+        new Column<AccountSummary>("verified", (s, out) -> out.value(s.isVerified())));
+
+    private EntityRepository entityRepo;
+    private AccountRepository accountRepo;
+
+    public ExportController() {
+    }
+
+    public ExportController(EntityRepository entityRepo, AccountRepository accountRepo) {
+        this.entityRepo = entityRepo;
+        this.accountRepo = accountRepo;
+    }
+
+    public enum Format { NDJSON, CSV;
+        private static final Allowlist<Format> NAMES = Allowlist.forEnum(values());
+        public static Format lookup(CharSequence name) { return NAMES.get(name); }
+    }
+
+    /*
+     * #E01 - FALSE POSITIVE: Entity export with user-selected columns
+     * WHY SAFE: Column names are resolved through a fixed Allowlist to precompiled
+     *           accessors; the request never reaches SQL text. The resume token and
+     *           limit are parsed to numbers and bound as statement parameters.
+     *           Values are escaped by JsonWriter, or quoted and formula-guarded by
+     *           CsvWriter, and sent as a download rather than rendered.
+     * WHY CXQL FAILS: CxQL sees the "columns" parameter select what is written and
+     *                 DB strings reach the response writer.
+     * CXQL LIMITATION: Allowlist lookups and custom CSV/JSON writers not recognized.
+     */
+    @JdbcBound(streaming = true)
+    public void entities(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        export(req, resp, "entities", ENTITY_COLUMNS, entityRepo::forEachAfter);
+    }
+
+    /*
+     * #E02 - FALSE POSITIVE: Masked account summary export
+     * WHY SAFE: Same as E01; the SSN and account number are masked in SQL, so only
+     *           masked values can be selected.
+     * WHY CXQL FAILS: CxQL flags "ssn" columns reaching a file download.
+     * CXQL LIMITATION: Database-side masking not recognized as PII protection.
+     */
+    @JdbcBound(streaming = true)
+    public void accounts(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        export(req, resp, "accounts", ACCOUNT_COLUMNS, accountRepo::forEachSummaryAfter);
+    }
+
+    private <T> void export(HttpServletRequest req, HttpServletResponse resp, String name, Columns<T> columns, Scan<T> scan)
+            throws IOException, SQLException {
+        String formatParam = req.getParameter("format");
+        Format format = formatParam == null ? Format.NDJSON : Format.lookup(formatParam);
+        List<Column<T>> selected = columns.select(req.getParameter("columns"));
+        String afterParam = req.getParameter("after");
+        long after = Sanitizer.toLong(afterParam, Long.MIN_VALUE);
+        String limitParam = req.getParameter("limit");
+        int limit = limitParam == null ? 0 : Sanitizer.toBoundedInt(limitParam, 1, Integer.MAX_VALUE, -1);
+        if (format == null || selected == null || (afterParam != null && after == Long.MIN_VALUE) || limit < 0) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        boolean csv = format == Format.CSV;
+        resp.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        resp.setHeader("Content-Disposition", "attachment; filename=\"" + name + (csv ? ".csv\"" : ".ndjson\""));
+        PrintWriter writer = resp.getWriter();
+        RecordSink out = csv ? new CsvSink(new CsvWriter(writer)) : new NdjsonSink(new JsonWriter(writer));
+        out.header(selected);
+        int[] pending = {0};
+        scan.run(after, limit, row -> {
+            out.begin();
+            for (Column<T> column : selected) {
+                out.name(column.name);
+                column.cell.write(row, out);
+            }
+            out.end();
+            if (++pending[0] == FLUSH_ROWS) {
+                pending[0] = 0;
+                out.flush();
+                // checkError() flushes to the client and reports the write errors PrintWriter swallows;
+                // stop reading the cursor once the client is gone
+                if (writer.checkError()) throw new IOException("Client aborted " + name + " export");
+            }
+        });
+        out.flush();
+    }
+
+    private interface Scan<T> {
+        void run(long after, int maxRows, RowHandler<T> handler) throws SQLException, IOException;
+    }
+
+    private interface Cell<T> {
+        void write(T row, RecordSink out) throws IOException;
+    }
+
+    private interface RecordSink {
+        void header(List<? extends Column<?>> columns) throws IOException;
+        void begin() throws IOException;
+        void name(String name) throws IOException;
+        void value(long value) throws IOException;
+        void value(double value) throws IOException;
+        void value(boolean value) throws IOException;
+        void value(CharSequence value) throws IOException;
+        void end() throws IOException;
+        void flush() throws IOException;
+    }
+
+    private static final class Column<T> {
+        final String name;
+        final Cell<T> cell;
+
+        Column(String name, Cell<T> cell) {
+            this.name = name;
+            this.cell = cell;
+        }
+    }
+
+    // The first column is the key the keyset cursor is ordered by
+    private static final class Columns<T> {
+        final List<Column<T>> all;
+        final Allowlist<Column<T>> byName;
+
+        @SafeVarargs
+        Columns(Column<T>... columns) {
+            Map<String, Column<T>> map = new LinkedHashMap<>();
+            for (Column<T> c : columns) map.put(c.name, c);
+            this.all = Collections.unmodifiableList(new ArrayList<>(map.values()));
+            this.byName = new Allowlist<>(map, false);
+        }
+
+        // null when a name is not a column; duplicates are dropped and the key is put first
+        List<Column<T>> select(String param) {
+            if (param == null || param.isEmpty()) return all;
+            List<Column<T>> selected = new ArrayList<>(all.size());
+            selected.add(all.get(0));
+            CsvTokenizer names = new CsvTokenizer(param);
+            while (names.next()) {
+                if (names.isEmpty()) continue;
+                Column<T> column = byName.get(names.field());
+                if (column == null) return null;
+                if (!selected.contains(column)) selected.add(column);
+            }
+            return selected;
+        }
+    }
+
+    private static final class NdjsonSink implements RecordSink {
+        private final JsonWriter json;
+
+        NdjsonSink(JsonWriter json) {
+            this.json = json;
+        }
+
+        @Override public void header(List<? extends Column<?>> columns) { }
+        @Override public void begin() throws IOException { json.beginObject(); }
+        @Override public void name(String name) throws IOException { json.name(name); }
+        @Override public void value(long value) throws IOException { json.value(value); }
+        @Override public void value(double value) throws IOException { json.value(value); }
+        @Override public void value(boolean value) throws IOException { json.value(value); }
+        @Override public void value(CharSequence value) throws IOException { json.value(value); }
+        @Override public void end() throws IOException { json.endObject().newline(); }
+        @Override public void flush() throws IOException { json.flush(); }
+    }
+
+    private static final class CsvSink implements RecordSink {
+        private final CsvWriter csv;
+
+        CsvSink(CsvWriter csv) {
+            this.csv = csv;
+        }
+
+        @Override
+        public void header(List<? extends Column<?>> columns) throws IOException {
+            for (Column<?> c : columns) csv.field(c.name);
+            csv.endRecord();
+        }
+
+        @Override public void begin() { }
+        @Override public void name(String name) { }
+        @Override public void value(long value) throws IOException { csv.field(value); }
+        @Override public void value(double value) throws IOException { csv.field(value); }
+        @Override public void value(boolean value) throws IOException { csv.field(value); }
+        @Override public void value(CharSequence value) throws IOException { csv.field(value); }
+        @Override public void end() throws IOException { csv.endRecord(); }
+        @Override public void flush() throws IOException { csv.flush(); }
+    }
+}
@@ -1,5 +1,8 @@
 package com.app.controller;
 
+import com.app.util.Encoders;
+import com.app.util.EncodingWriter;
+import com.app.util.HtmlSanitizer;
 import javax.servlet.http.*;
 import java.io.*;
 
@@ -19,6 +22,8 @@ import java.io.*;
  */
 public class FrameworkController extends HttpServlet {
 
+    private static final HtmlSanitizer BASIC_SAFELIST = HtmlSanitizer.basic();
+
     /*
      * #F01 - OWASP ESAPI encodeForHTML
      * WHY SAFE: ESAPI.encoder().encodeForHTML() is the gold standard XSS sanitizer.
@@ -29,8 +34,11 @@ public class FrameworkController extends HttpServlet {
     public void handleEsapiHtml(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("data");
         // String safe = ESAPI.encoder().encodeForHTML(input);
-        String safe = encodeForHTML(input); // Simulated
-        resp.getWriter().write("<div>" + safe + "</div>");
+        EncodingWriter out = new EncodingWriter(resp.getWriter()); // Simulated, encodes into the response
+        out.write("<div>");
+        out.writeHtml(input);
+        out.write("</div>");
+        out.flush();
     }
 
     /*
@@ -43,8 +51,11 @@ public class FrameworkController extends HttpServlet {
     public void handleEsapiJs(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("data");
         // String safe = ESAPI.encoder().encodeForJavaScript(input);
-        String safe = encodeForJavaScript(input); // Simulated
-        resp.getWriter().write("<script>var x = '" + safe + "';</script>");
+        EncodingWriter out = new EncodingWriter(resp.getWriter()); // Simulated, encodes into the response
+        out.write("<script>var x = '");
+        out.writeJavaScript(input);
+        out.write("';</script>");
+        out.flush();
     }
 
     /*
@@ -57,8 +68,11 @@ public class FrameworkController extends HttpServlet {
     public void handleEsapiUrl(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("redirect");
         // String safe = ESAPI.encoder().encodeForURL(input);
-        String safe = encodeForURL(input); // Simulated
-        resp.getWriter().write("<a href=\"" + safe + "\">Link</a>");
+        EncodingWriter out = new EncodingWriter(resp.getWriter()); // Simulated, encodes into the response
+        out.write("<a href=\"");
+        out.writeUrlComponent(input);
+        out.write("\">Link</a>");
+        out.flush();
     }
 
     /*
@@ -225,8 +239,11 @@ public class FrameworkController extends HttpServlet {
     public void handleEsapiCss(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("color");
         // String safe = ESAPI.encoder().encodeForCSS(input);
-        String safe = encodeForCSS(input); // Simulated
-        resp.getWriter().write("<div style=\"color: " + safe + "\">Text</div>");
+        EncodingWriter out = new EncodingWriter(resp.getWriter()); // Simulated, encodes into the response
+        out.write("<div style=\"color: ");
+        out.writeCss(input);
+        out.write("\">Text</div>");
+        out.flush();
     }
 
     // ========== Simulated Framework Methods ==========
@@ -234,21 +251,11 @@ public class FrameworkController extends HttpServlet {
     // In production, use the real framework imports
 
     private String encodeForHTML(String input) {
-        if (input == null) return "";
-        return input.replace("&", "&amp;").replace("<", "&lt;")
-                    .replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&#x27;");
+        return Encoders.HTML.encode(input);
     }
 
     private String encodeForJavaScript(String input) {
-        if (input == null) return "";
-        return input.replace("\\", "\\\\").replace("'", "\\'")
-                    .replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
-    }
-
-    private String encodeForURL(String input) {
-        try {
-            return java.net.URLEncoder.encode(input != null ? input : "", "UTF-8");
-        } catch (Exception e) { return ""; }
+        return Encoders.JAVASCRIPT.encode(input);
     }
 
     private String escapeHtml4(String input) {
@@ -285,18 +292,11 @@ public class FrameworkController extends HttpServlet {
 
     private String jsoupClean(String input) {
         // Simulates Jsoup.clean with basic safelist
-        if (input == null) return "";
-        return input.replaceAll("<script[^>]*>.*?</script>", "")
-                    .replaceAll("<[^>]+>", "");
+        return BASIC_SAFELIST.sanitize(input);
     }
 
     private String encodeForHTMLAttribute(String input) {
         return encodeForHTML(input);
     }
-
-    private String encodeForCSS(String input) {
-        if (input == null) return "";
-        return input.replaceAll("[^a-zA-Z0-9#]", "");
-    }
 }
 
@@ -0,0 +1,251 @@
+package com.app.controller;
+
+import com.app.repository.AccountRepository;
+import com.app.repository.EntityRepository;
+import com.app.service.AccountService;
+import com.app.service.EntityService;
+import com.app.util.Allowlist;
+import com.app.web.AsyncJdbcExecutor;
+import com.app.web.JdbcBound;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Single entry point for the scenario controllers. At init every public
+ * (HttpServletRequest, HttpServletResponse) method of each controller becomes
+ * a route /{controller}/{method}, e.g. /display/renderEntityName, where the
+ * controller part is the class name without "Controller", lower-cased. The
+ * table is an exact-match Allowlist over the path info mapped to MethodHandles
+ * bound to one controller instance, so a request costs one hash probe and an
+ * invokeExact. Routes of @JdbcBound controllers or methods are run through
+ * AsyncJdbcExecutor, buffered or, with streaming set, streamed; map the
+ * servlet with async support enabled for that to take effect.
+ *
+ * Init params: jdbcThreads (default 16), asyncTimeoutMillis (default 10000).
+ *
+ * Created by the container (no-arg constructor), the controllers are built in
+ * init() from the repositories found under the servlet context attributes
+ * ENTITY_REPOSITORY and ACCOUNT_REPOSITORY, typically set by a
+ * ServletContextListener. Controllers whose repositories are missing are not
+ * routed, so their paths answer 404 rather than failing on a null field.
+ */
+public class FrontController extends HttpServlet {
+
+    public static final String ENTITY_REPOSITORY = EntityRepository.class.getName();
+    public static final String ACCOUNT_REPOSITORY = AccountRepository.class.getName();
+
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, HttpServletRequest.class, HttpServletResponse.class);
+
+    private List<Object> controllers;
+    private Allowlist<Route> routes;
+    private List<Route> routeList;
+    private ExecutorService jdbcPool;
+    private AsyncJdbcExecutor async;
+
+    public FrontController() {
+    }
+
+    // Routes exactly the given controllers, which must be fully constructed; init() adds none
+    public FrontController(Object... controllers) {
+        List<Object> list = new ArrayList<>();
+        Collections.addAll(list, controllers);
+        this.controllers = list;
+        buildRoutes();
+    }
+
+    @Override
+    public void init() throws ServletException {
+        if (controllers == null) {
+            ServletContext context = getServletContext();
+            controllers = defaultControllers(
+                attribute(context, ENTITY_REPOSITORY, EntityRepository.class),
+                attribute(context, ACCOUNT_REPOSITORY, AccountRepository.class));
+            buildRoutes();
+        }
+        int threads = intParam("jdbcThreads", 16);
+        long timeout = intParam("asyncTimeoutMillis", (int) AsyncJdbcExecutor.DEFAULT_TIMEOUT_MILLIS);
+        useExecutor(Executors.newFixedThreadPool(threads), timeout);
+    }
+
+    // Replaces the executor used for @JdbcBound routes; the previous one is shut down
+    public void useExecutor(ExecutorService executor, long timeoutMillis) {
+        if (jdbcPool != null) jdbcPool.shutdown();
+        this.jdbcPool = executor;
+        this.async = new AsyncJdbcExecutor(executor, timeoutMillis);
+    }
+
+    @Override
+    public void destroy() {
+        if (jdbcPool != null) jdbcPool.shutdown();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        dispatch(req, resp);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        dispatch(req, resp);
+    }
+
+    public List<String> getRoutes() {
+        List<String> paths = new ArrayList<>(routeList.size());
+        for (Route r : routeList) paths.add(r.path);
+        return paths;
+    }
+
+    // -1 for an unknown path
+    public long getInvocationCount(String path) {
+        Route r = routes.get(path);
+        return r == null ? -1 : r.invocations.sum();
+    }
+
+    public Map<String, Long> getInvocationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Route r : routeList) counts.put(r.path, r.invocations.sum());
+        return counts;
+    }
+
+    private void dispatch(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        Route route = routes.get(req.getPathInfo());
+        if (route == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        route.invocations.increment();
+        if (route.jdbcBound != null && async != null) {
+            if (route.jdbcBound.streaming()) async.stream(req, resp, route::invoke);
+            else async.dispatch(req, resp, route::invoke);
+        } else {
+            try {
+                route.invoke(req, resp);
+            } catch (IOException | ServletException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ServletException(e);
+            }
+        }
+    }
+
+    // The scenario controllers that can run with the given repositories; either may be null
+    static List<Object> defaultControllers(EntityRepository entityRepo, AccountRepository accountRepo) {
+        List<Object> list = new ArrayList<>();
+        list.add(new InputController());
+        list.add(new FrameworkController());
+        EntityService entityService = entityRepo == null ? null : new EntityService(entityRepo);
+        AccountService accountService = accountRepo == null ? null : new AccountService(accountRepo);
+        if (entityService != null) {
+            list.add(new BatchController(entityService));
+        }
+        if (accountService != null) {
+            list.add(new DataController(accountService));
+        }
+        if (entityRepo != null && accountRepo != null) {
+            list.add(new DisplayController(entityService, accountService));
+            list.add(new ComplexController(entityRepo, accountRepo));
+            list.add(new JsonController(entityRepo, accountRepo));
+            list.add(new ExportController(entityRepo, accountRepo));
+        }
+        return list;
+    }
+
+    private <T> T attribute(ServletContext context, String name, Class<T> type) throws ServletException {
+        Object value = context.getAttribute(name);
+        if (value == null) {
+            log("No " + name + " context attribute; routes that need it are not registered");
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw new ServletException("Context attribute " + name + " is a " + value.getClass().getName());
+        }
+        return type.cast(value);
+    }
+
+    private void buildRoutes() {
+        Map<String, Route> table = new LinkedHashMap<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Object controller : controllers) {
+            Class<?> type = controller.getClass();
+            String prefix = "/" + prefix(type) + "/";
+            JdbcBound controllerBound = type.getAnnotation(JdbcBound.class);
+            for (Method m : type.getDeclaredMethods()) {
+                if (!isHandler(m)) continue;
+                String path = prefix + m.getName();
+                MethodHandle handle;
+                try {
+                    handle = lookup.unreflect(m).bindTo(controller).asType(HANDLER_TYPE);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot route " + path, e);
+                }
+                JdbcBound bound = m.getAnnotation(JdbcBound.class);
+                if (bound == null) bound = controllerBound;
+                if (table.put(path, new Route(path, handle, bound)) != null) {
+                    throw new IllegalStateException("Duplicate route " + path);
+                }
+            }
+        }
+        this.routeList = new ArrayList<>(table.values());
+        this.routes = new Allowlist<>(table, false);
+    }
+
+    private static boolean isHandler(Method m) {
+        int mod = m.getModifiers();
+        Class<?>[] params = m.getParameterTypes();
+        return Modifier.isPublic(mod) && !Modifier.isStatic(mod) && !m.isSynthetic()
+            && m.getReturnType() == void.class && params.length == 2
+            && params[0] == HttpServletRequest.class && params[1] == HttpServletResponse.class;
+    }
+
+    private static String prefix(Class<?> type) {
+        String name = type.getSimpleName();
+        if (name.endsWith("Controller")) name = name.substring(0, name.length() - "Controller".length());
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private int intParam(String name, int defaultValue) {
+        String value = getInitParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static final class Route {
+        final String path;
+        final MethodHandle handle;
+        final JdbcBound jdbcBound;  // null when the route runs on the container thread
+        final LongAdder invocations = new LongAdder();
+
+        Route(String path, MethodHandle handle, JdbcBound jdbcBound) {
+            this.path = path;
+            this.handle = handle;
+            this.jdbcBound = jdbcBound;
+        }
+
+        void invoke(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+            try {
+                handle.invokeExact(req, resp);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.app.controller;
 
+import com.app.util.Allowlist;
+import com.app.util.ByteEncoders;
+import com.app.util.Encoders;
 import com.app.util.Sanitizer;
+import com.app.util.Validators;
 import javax.servlet.http.*;
 import java.io.*;
-import java.util.regex.Pattern;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 
 /**
  * Reflected XSS False Positive Scenarios
@@ -14,9 +16,14 @@ import java.util.Base64;
  */
 public class InputController extends HttpServlet {
 
-    public enum Category { ELECTRONICS, CLOTHING, FOOD, OTHER }
-    public enum Priority { LOW, MEDIUM, HIGH, CRITICAL }
-    private static final Pattern SAFE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    public enum Category { ELECTRONICS, CLOTHING, FOOD, OTHER;
+        private static final Allowlist<Category> NAMES = Allowlist.forEnum(values());
+        public static Category lookup(CharSequence name) { return NAMES.get(name); }
+    }
+    public enum Priority { LOW, MEDIUM, HIGH, CRITICAL;
+        private static final Allowlist<Priority> NAMES = Allowlist.forEnum(values());
+        public static Priority lookup(CharSequence name) { return NAMES.get(name); }
+    }
 
     /*
      * #R01 - FALSE POSITIVE: Regex validated alphanumeric input
@@ -97,17 +104,22 @@ public class InputController extends HttpServlet {
     }
 
     /*
-     * #R06 - FALSE POSITIVE: Enum.valueOf type-safe validation
-     * WHY SAFE: Enum.valueOf() only accepts exact matches to defined enum constants.
-     *           Input "ELECTRONICS" works, but "<script>" throws IllegalArgumentException.
+     * #R06 - FALSE POSITIVE: Enum lookup type-safe validation
+     * WHY SAFE: Category.lookup() only matches the names of the defined enum constants
+     *           (case-insensitively) and returns null for anything else.
+     *           Input "electronics" works, but "<script>" gets a 400 before any output.
      *           cat.name() returns only the enum constant name - a compile-time fixed string.
      * WHY CXQL FAILS: CxQL tracks data flow but doesn't recognize enum conversion as sanitization.
      *                 It cannot determine that the output is constrained to predefined values.
-     * CXQL LIMITATION: Enum.valueOf() not recognized as type-safe conversion/sanitizer.
+     * CXQL LIMITATION: Allowlist-backed enum lookup not recognized as type-safe conversion/sanitizer.
      */
     public void handleCategory(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("category");
-        Category cat = Category.valueOf(input.toUpperCase());
+        Category cat = Category.lookup(input);
+        if (cat == null) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
         resp.getWriter().write("<span>" + cat.name() + "</span>");
     }
 
@@ -121,7 +133,11 @@ public class InputController extends HttpServlet {
      */
     public void handlePriority(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("priority");
-        Priority pri = Priority.valueOf(input.toUpperCase());
+        Priority pri = Priority.lookup(input);
+        if (pri == null) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
         resp.getWriter().write("<span>" + pri.toString() + "</span>");
     }
 
@@ -147,26 +163,28 @@ public class InputController extends HttpServlet {
      *           The encoded output cannot be interpreted as HTML/JavaScript.
      * WHY CXQL FAILS: CxQL does not recognize Base64 encoding as a sanitizer.
      *                 It cannot determine that the output character set is HTML-safe.
-     * CXQL LIMITATION: Base64.getEncoder() not recognized as producing safe output.
+     * CXQL LIMITATION: Base64 encoders not recognized as producing safe output.
      */
     public void handleBase64(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String input = req.getParameter("data");
-        String encoded = Base64.getEncoder().encodeToString(input.getBytes(StandardCharsets.UTF_8));
-        resp.getWriter().write("<span data-encoded=\"" + encoded + "\"></span>");
+        PrintWriter out = resp.getWriter();
+        out.write("<span data-encoded=\"");
+        ByteEncoders.base64(input, out);
+        out.write("\"></span>");
     }
 
     /*
-     * #R10 - FALSE POSITIVE: Regex pattern validation guard
-     * WHY SAFE: Pattern ^[a-zA-Z0-9_-]+$ allows ONLY alphanumeric, underscore, and hyphen.
+     * #R10 - FALSE POSITIVE: Character-class validation guard
+     * WHY SAFE: Validators.isSafeId (^[a-zA-Z0-9_-]+$) allows ONLY alphanumeric, underscore, and hyphen.
      *           XSS characters like < > " ' are not in the allowed set.
      *           If pattern doesn't match, output code is never executed.
-     * WHY CXQL FAILS: CxQL does not analyze regex patterns to determine character constraints.
+     * WHY CXQL FAILS: CxQL does not analyze custom validators to determine character constraints.
      *                 It cannot determine that the if-condition ensures safe character set.
-     * CXQL LIMITATION: No regex pattern analysis for validation guards.
+     * CXQL LIMITATION: No character-class analysis for validation guards.
      */
     public void handleSafeId(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String id = req.getParameter("id");
-        if (SAFE_PATTERN.matcher(id).matches()) {
+        if (Validators.isSafeId(id)) {
             resp.getWriter().write("<div id=\"" + id + "\"></div>");
         }
     }
@@ -332,25 +350,15 @@ public class InputController extends HttpServlet {
 
     // Helper methods simulating common sanitization libraries
     private String escapeHtml4(String input) {
-        if (input == null) return "";
-        return input.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
-                    .replace("\"", "&quot;").replace("'", "&#39;");
+        return Encoders.HTML_DECIMAL.encode(input);
     }
 
     private String encodeForHtmlAttribute(String input) {
-        if (input == null) return "";
-        StringBuilder sb = new StringBuilder();
-        for (char c : input.toCharArray()) {
-            if (Character.isLetterOrDigit(c)) sb.append(c);
-            else sb.append("&#").append((int) c).append(";");
-        }
-        return sb.toString();
+        return Encoders.HTML_ATTRIBUTE.encode(input);
     }
 
     private String escapeJsonString(String input) {
-        if (input == null) return "";
-        return input.replace("\\", "\\\\").replace("\"", "\\\"")
-                    .replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+        return Encoders.JSON.encode(input);
     }
 }
 
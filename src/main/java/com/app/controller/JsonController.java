@@ -0,0 +1,144 @@
+package com.app.controller;
+
+import com.app.model.AccountSummary;
+import com.app.model.Entity;
+import com.app.repository.AccountRepository;
+import com.app.repository.EntityRepository;
+import com.app.repository.RowHandler;
+import com.app.util.JsonWriter;
+import com.app.util.Sanitizer;
+import com.app.web.JdbcBound;
+import com.app.web.JsonViews;
+import javax.servlet.http.*;
+import java.io.*;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * JSON Output False Positive Scenarios
+ * All scenarios are SAFE but CxQL may incorrectly flag them
+ * Pattern: DB data -> JsonWriter (escaping) -> application/json response
+ * List endpoints stream rows from the repository scans as they are read; they run
+ * on the JDBC executor too, with their output streamed rather than buffered.
+ */
+public class JsonController extends HttpServlet {
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final int FLUSH_ROWS = 512;
+
+    private EntityRepository entityRepo;
+    private AccountRepository accountRepo;
+
+    public JsonController() {
+    }
+
+    public JsonController(EntityRepository entityRepo, AccountRepository accountRepo) {
+        this.entityRepo = entityRepo;
+        this.accountRepo = accountRepo;
+    }
+
+    /*
+     * #J01 - FALSE POSITIVE: Database entity serialized with JsonWriter
+     * WHY SAFE: Entity.name is written as a JSON string literal; JsonWriter escapes
+     *           quotes, backslashes, control characters and < > & as unicode escapes.
+     *           The response is application/json, and the id is parsed to a long.
+     * WHY CXQL FAILS: CxQL does not know the hand-written JsonWriter as an encoder.
+     *                 It sees DB strings reaching the response writer.
+     * CXQL LIMITATION: Custom JSON serializers not recognized as output encoding.
+     */
+    @JdbcBound
+    public void entity(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        long id = Sanitizer.toLong(req.getParameter("id"));
+        Optional<Entity> entity = entityRepo.findById(id);
+        resp.setContentType(CONTENT_TYPE);
+        JsonWriter json = new JsonWriter(resp.getWriter(), 512);
+        if (entity.isPresent()) {
+            JsonViews.entity(json, entity.get());
+        } else {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            json.beginObject().name("error").value("not found").endObject();
+        }
+        json.flush();
+    }
+
+    /*
+     * #J02 - FALSE POSITIVE: Streamed entity list
+     * WHY SAFE: Same escaping as J01 for every row; the optional status filter is parsed
+     *           to an int (anything else is a 400) and only used as a bound statement parameter.
+     * WHY CXQL FAILS: CxQL cannot follow rows through the RowHandler callback.
+     * CXQL LIMITATION: Callback-based result streaming not analyzed.
+     */
+    @JdbcBound(streaming = true)
+    public void entities(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        String statusParam = req.getParameter("status");
+        int status = Sanitizer.toInt(statusParam, Integer.MIN_VALUE);
+        if (statusParam != null && status == Integer.MIN_VALUE) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        resp.setContentType(CONTENT_TYPE);
+        PrintWriter writer = resp.getWriter();
+        JsonWriter json = new JsonWriter(writer);
+        json.beginArray();
+        RowHandler<Entity> rows = flushing(json, writer, "entity list", e -> JsonViews.entity(json, e));
+        if (statusParam == null) {
+            entityRepo.forEachAll(rows);
+        } else {
+            entityRepo.forEachByStatus(status, rows);
+        }
+        json.endArray().flush();
+    }
+
+    /*
+     * #J03 - FALSE POSITIVE: Masked account summary as JSON
+     * WHY SAFE: The SSN and account number are masked in SQL (SUMMARY_SELECT); only
+     *           the last four characters ever leave the database.
+     * WHY CXQL FAILS: CxQL flags "ssn" fields reaching output regardless of masking.
+     * CXQL LIMITATION: Database-side masking not recognized as PII protection.
+     */
+    @JdbcBound
+    public void account(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        long id = Sanitizer.toLong(req.getParameter("id"));
+        Optional<AccountSummary> summary = accountRepo.findSummaryById(id);
+        resp.setContentType(CONTENT_TYPE);
+        JsonWriter json = new JsonWriter(resp.getWriter(), 512);
+        if (summary.isPresent()) {
+            JsonViews.account(json, summary.get());
+        } else {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            json.beginObject().name("error").value("not found").endObject();
+        }
+        json.flush();
+    }
+
+    /*
+     * #J04 - FALSE POSITIVE: Streamed masked account summaries
+     * WHY SAFE: Same database-side masking as J03 for every row.
+     * WHY CXQL FAILS: Same as J02 and J03.
+     * CXQL LIMITATION: Masking in SQL and callback streaming not analyzed.
+     */
+    @JdbcBound(streaming = true)
+    public void accounts(HttpServletRequest req, HttpServletResponse resp) throws IOException, SQLException {
+        resp.setContentType(CONTENT_TYPE);
+        PrintWriter writer = resp.getWriter();
+        JsonWriter json = new JsonWriter(writer);
+        json.beginArray();
+        accountRepo.forEachSummary(flushing(json, writer, "account list", s -> JsonViews.account(json, s)));
+        json.endArray().flush();
+    }
+
+    // Writes each row through view and flushes to the client every FLUSH_ROWS rows.
+    // checkError() reports the write errors PrintWriter swallows; the scan stops once
+    // the client is gone.
+    private static <T> RowHandler<T> flushing(JsonWriter json, PrintWriter writer, String name, RowHandler<T> view) {
+        int[] pending = {0};
+        return row -> {
+            view.handle(row);
+            if (++pending[0] == FLUSH_ROWS) {
+                pending[0] = 0;
+                json.flush();
+                if (writer.checkError()) throw new IOException("Client aborted " + name);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.app.core;
 
+import com.app.util.NumberParser;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,6 +17,18 @@ public class Transformer {
     public static double stringToDouble(String input) {
         return Double.parseDouble(input);
     }
+
+    public static int stringToInt(CharSequence input, int defaultValue) {
+        return NumberParser.parseInt(input, defaultValue);
+    }
+
+    public static long stringToLong(CharSequence input, long defaultValue) {
+        return NumberParser.parseLong(input, defaultValue);
+    }
+
+    public static double stringToDouble(CharSequence input, double defaultValue) {
+        return NumberParser.parseDouble(input, defaultValue);
+    }
     
     public static boolean stringToBoolean(String input) {
         return Boolean.parseBoolean(input);
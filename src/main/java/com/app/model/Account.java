@@ -1,5 +1,7 @@
 package com.app.model;
 
+import com.app.util.TextKernel;
+
 public class Account {
     private long accountId;
     private String accountNumber;
@@ -57,12 +59,7 @@ public class Account {
     }
 
     public int getSsnChecksum() {
-        if (ssn == null) return 0;
-        int sum = 0;
-        for (char c : ssn.toCharArray()) {
-            if (Character.isDigit(c)) sum += Character.getNumericValue(c);
-        }
-        return sum % 10;
+        return TextKernel.digitSum(ssn) % 10;
     }
 }
 
@@ -0,0 +1,24 @@
+package com.app.model;
+
+public class AccountSummary {
+    private long accountId;
+    private String maskedSsn;
+    private String maskedAccountNumber;
+    private int tier;
+    private boolean verified;
+
+    public long getAccountId() { return accountId; }
+    public void setAccountId(long accountId) { this.accountId = accountId; }
+
+    public String getMaskedSsn() { return maskedSsn; }
+    public void setMaskedSsn(String maskedSsn) { this.maskedSsn = maskedSsn; }
+
+    public String getMaskedAccountNumber() { return maskedAccountNumber; }
+    public void setMaskedAccountNumber(String maskedAccountNumber) { this.maskedAccountNumber = maskedAccountNumber; }
+
+    public int getTier() { return tier; }
+    public void setTier(int tier) { this.tier = tier; }
+
+    public boolean isVerified() { return verified; }
+    public void setVerified(boolean verified) { this.verified = verified; }
+}
@@ -12,6 +12,7 @@ public class Entity {
     private String category;
     private String uuid;
     private String content;
+    private long version;
 
     public Entity() {}
 
@@ -53,6 +54,9 @@ public class Entity {
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public int getCode() { return (int)(id % 1000); }
     public long getTimestamp() { return System.currentTimeMillis(); }
 }
@@ -1,33 +1,46 @@
 package com.app.repository;
 
 import com.app.model.Account;
+import com.app.model.AccountSummary;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class AccountRepository {
+
+    // Statements are shared with RoutingAccountRepository
+    static final String SELECT = "SELECT account_id, account_number, ssn, password, tier, verified FROM accounts";
+    static final String SELECT_BY_ID = SELECT + " WHERE account_id = ?";
+
+    // Masking happens in the database so the raw SSN and account number never leave it;
+    // the fallbacks mirror Account.getMaskedSsn() and Account.getMaskedAccount().
+    static final String SUMMARY_SELECT = "SELECT account_id, tier, verified, "
+            + "CASE WHEN ssn IS NULL OR LENGTH(ssn) < 4 THEN '***-**-****' "
+            + "ELSE CONCAT('***-**-', RIGHT(ssn, 4)) END AS masked_ssn, "
+            + "CASE WHEN account_number IS NULL OR LENGTH(account_number) < 4 THEN '****' "
+            + "ELSE CONCAT('****', RIGHT(account_number, 4)) END AS masked_account_number "
+            + "FROM accounts";
+    static final String SUMMARY_SELECT_BY_ID = SUMMARY_SELECT + " WHERE account_id = ?";
+    static final String SUMMARY_SELECT_AFTER = SUMMARY_SELECT + " WHERE account_id > ? ORDER BY account_id";
     
     private Connection connection;
     
     public AccountRepository(Connection connection) {
         this.connection = connection;
     }
+
+    protected AccountRepository() {
+    }
     
     public Optional<Account> findById(long id) throws SQLException {
-        String sql = "SELECT account_id, account_number, ssn, password, tier, verified FROM accounts WHERE account_id = ?";
+        String sql = SELECT_BY_ID;
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                Account a = new Account();
-                a.setAccountId(rs.getLong("account_id"));
-                a.setAccountNumber(rs.getString("account_number"));
-                a.setSsn(rs.getString("ssn"));
-                a.setPassword(rs.getString("password"));
-                a.setTier(rs.getInt("tier"));
-                a.setVerified(rs.getBoolean("verified"));
-                return Optional.of(a);
+                return Optional.of(mapRow(rs));
             }
         }
         return Optional.empty();
@@ -35,21 +48,80 @@ public class AccountRepository {
     
     public List<Account> findAll() throws SQLException {
         List<Account> accounts = new ArrayList<>();
-        String sql = "SELECT account_id, account_number, ssn, password, tier, verified FROM accounts";
+        String sql = SELECT;
         try (Statement stmt = connection.createStatement()) {
             ResultSet rs = stmt.executeQuery(sql);
             while (rs.next()) {
-                Account a = new Account();
-                a.setAccountId(rs.getLong("account_id"));
-                a.setAccountNumber(rs.getString("account_number"));
-                a.setSsn(rs.getString("ssn"));
-                a.setPassword(rs.getString("password"));
-                a.setTier(rs.getInt("tier"));
-                a.setVerified(rs.getBoolean("verified"));
-                accounts.add(a);
+                accounts.add(mapRow(rs));
             }
         }
         return accounts;
     }
-}
 
+    public Optional<AccountSummary> findSummaryById(long id) throws SQLException {
+        String sql = SUMMARY_SELECT_BY_ID;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapSummary(rs));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<AccountSummary> findAllSummaries() throws SQLException {
+        List<AccountSummary> summaries = new ArrayList<>();
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(SUMMARY_SELECT);
+            while (rs.next()) {
+                summaries.add(mapSummary(rs));
+            }
+        }
+        return summaries;
+    }
+
+    // Masked summaries handed to the handler as the result set is read
+    public void forEachSummary(RowHandler<AccountSummary> handler) throws SQLException, IOException {
+        try (PreparedStatement stmt = connection.prepareStatement(SUMMARY_SELECT)) {
+            stmt.setFetchSize(EntityRepository.STREAM_FETCH_SIZE);
+            streamSummaries(stmt, handler);
+        }
+    }
+
+    // Keyset scan like EntityRepository.forEachAfter, resuming after the last account id handed out
+    public void forEachSummaryAfter(long afterAccountId, int maxRows, RowHandler<AccountSummary> handler) throws SQLException, IOException {
+        try (PreparedStatement stmt = EntityRepository.prepareAfter(connection, SUMMARY_SELECT_AFTER, afterAccountId, maxRows)) {
+            streamSummaries(stmt, handler);
+        }
+    }
+
+    static void streamSummaries(PreparedStatement stmt, RowHandler<AccountSummary> handler) throws SQLException, IOException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                handler.handle(mapSummary(rs));
+            }
+        }
+    }
+
+    static Account mapRow(ResultSet rs) throws SQLException {
+        Account a = new Account();
+        a.setAccountId(rs.getLong("account_id"));
+        a.setAccountNumber(rs.getString("account_number"));
+        a.setSsn(rs.getString("ssn"));
+        a.setPassword(rs.getString("password"));
+        a.setTier(rs.getInt("tier"));
+        a.setVerified(rs.getBoolean("verified"));
+        return a;
+    }
+
+    static AccountSummary mapSummary(ResultSet rs) throws SQLException {
+        AccountSummary s = new AccountSummary();
+        s.setAccountId(rs.getLong("account_id"));
+        s.setMaskedSsn(rs.getString("masked_ssn"));
+        s.setMaskedAccountNumber(rs.getString("masked_account_number"));
+        s.setTier(rs.getInt("tier"));
+        s.setVerified(rs.getBoolean("verified"));
+        return s;
+    }
+}
@@ -1,6 +1,7 @@
 package com.app.repository;
 
 import com.app.model.Entity;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,26 +9,34 @@ import java.util.Optional;
 
 public class EntityRepository {
     
+    static final int STREAM_FETCH_SIZE = 256;
+    // Statements are shared with RoutingEntityRepository and ShardedEntityRepository
+    static final String SELECT = "SELECT id, name, email, status, active, balance, version FROM entities";
+    static final String SELECT_BY_ID = SELECT + " WHERE id = ?";
+    static final String SELECT_BY_STATUS = SELECT + " WHERE status = ?";
+    static final String SELECT_AFTER = SELECT + " WHERE id > ? ORDER BY id";
+    static final String SELECT_VERSION = "SELECT version FROM entities WHERE id = ?";
+    // The version column is added by db/entities-version.sql; every write to a row must bump it,
+    // or ConditionalGet and FragmentCache keep serving the old rendering
+    static final String UPDATE = "UPDATE entities SET name = ?, email = ?, status = ?, active = ?, balance = ?,"
+            + " version = version + 1 WHERE id = ? AND version = ?";
+
     private Connection connection;
     
     public EntityRepository(Connection connection) {
         this.connection = connection;
     }
+
+    protected EntityRepository() {
+    }
     
     public Optional<Entity> findById(long id) throws SQLException {
-        String sql = "SELECT id, name, email, status, active, balance FROM entities WHERE id = ?";
+        String sql = SELECT_BY_ID;
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                Entity e = new Entity();
-                e.setId(rs.getLong("id"));
-                e.setName(rs.getString("name"));
-                e.setEmail(rs.getString("email"));
-                e.setStatus(rs.getInt("status"));
-                e.setActive(rs.getBoolean("active"));
-                e.setBalance(rs.getDouble("balance"));
-                return Optional.of(e);
+                return Optional.of(mapRow(rs));
             }
         }
         return Optional.empty();
@@ -35,18 +44,11 @@ public class EntityRepository {
     
     public List<Entity> findAll() throws SQLException {
         List<Entity> entities = new ArrayList<>();
-        String sql = "SELECT id, name, email, status, active, balance FROM entities";
+        String sql = SELECT;
         try (Statement stmt = connection.createStatement()) {
             ResultSet rs = stmt.executeQuery(sql);
             while (rs.next()) {
-                Entity e = new Entity();
-                e.setId(rs.getLong("id"));
-                e.setName(rs.getString("name"));
-                e.setEmail(rs.getString("email"));
-                e.setStatus(rs.getInt("status"));
-                e.setActive(rs.getBoolean("active"));
-                e.setBalance(rs.getDouble("balance"));
-                entities.add(e);
+                entities.add(mapRow(rs));
             }
         }
         return entities;
@@ -54,22 +56,134 @@ public class EntityRepository {
     
     public List<Entity> findByStatus(int status) throws SQLException {
         List<Entity> entities = new ArrayList<>();
-        String sql = "SELECT id, name, email, status, active, balance FROM entities WHERE status = ?";
+        String sql = SELECT_BY_STATUS;
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, status);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                Entity e = new Entity();
-                e.setId(rs.getLong("id"));
-                e.setName(rs.getString("name"));
-                e.setEmail(rs.getString("email"));
-                e.setStatus(rs.getInt("status"));
-                e.setActive(rs.getBoolean("active"));
-                e.setBalance(rs.getDouble("balance"));
-                entities.add(e);
+                entities.add(mapRow(rs));
             }
         }
         return entities;
     }
-}
 
+    // Rows are handed to the handler as the result set is read, without collecting them
+    public void forEachAll(RowHandler<Entity> handler) throws SQLException, IOException {
+        String sql = SELECT;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            streamRows(stmt, handler);
+        }
+    }
+
+    public void forEachByStatus(int status, RowHandler<Entity> handler) throws SQLException, IOException {
+        String sql = SELECT_BY_STATUS;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            stmt.setInt(1, status);
+            streamRows(stmt, handler);
+        }
+    }
+
+    // Keyset scan in id order over a forward-only cursor: rows with id > afterId, at most
+    // maxRows of them (0 for no limit). The last id handed out is where the next call resumes.
+    public void forEachAfter(long afterId, int maxRows, RowHandler<Entity> handler) throws SQLException, IOException {
+        try (PreparedStatement stmt = prepareAfter(connection, SELECT_AFTER, afterId, maxRows)) {
+            streamRows(stmt, handler);
+        }
+    }
+
+    // One round trip for a set of ids; rows come back in no particular order and missing ids are simply absent
+    public List<Entity> findByIds(long[] ids) throws SQLException {
+        List<Entity> entities = new ArrayList<>(ids.length);
+        if (ids.length == 0) return entities;
+        String sql = selectByIds(SELECT, ids.length);
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            bindIds(stmt, ids);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                entities.add(mapRow(rs));
+            }
+        }
+        return entities;
+    }
+
+    // The version column is bumped by every write to the row (see UPDATE); -1 when there is no such row
+    public long findVersion(long id) throws SQLException {
+        String sql = SELECT_VERSION;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    // Optimistic write: applied only while the row still has entity.getVersion(), which is then
+    // advanced to match. False when the row was changed by someone else or no longer exists.
+    public boolean update(Entity entity) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(UPDATE)) {
+            return applyUpdate(stmt, entity);
+        }
+    }
+
+    static boolean applyUpdate(PreparedStatement stmt, Entity entity) throws SQLException {
+        stmt.setString(1, entity.getName());
+        stmt.setString(2, entity.getEmail());
+        stmt.setInt(3, entity.getStatus());
+        stmt.setBoolean(4, entity.isActive());
+        stmt.setDouble(5, entity.getBalance());
+        stmt.setLong(6, entity.getId());
+        stmt.setLong(7, entity.getVersion());
+        if (stmt.executeUpdate() == 0) return false;
+        entity.setVersion(entity.getVersion() + 1);
+        return true;
+    }
+
+    static void streamRows(PreparedStatement stmt, RowHandler<Entity> handler) throws SQLException, IOException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                handler.handle(mapRow(rs));
+            }
+        }
+    }
+
+    static PreparedStatement prepareAfter(Connection connection, String sql, long afterId, int maxRows) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            stmt.setMaxRows(Math.max(maxRows, 0));
+            stmt.setLong(1, afterId);
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+
+    static String selectByIds(String select, int count) {
+        StringBuilder sql = new StringBuilder(select.length() + 16 + count * 2);
+        sql.append(select).append(" WHERE id IN (");
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.append(')').toString();
+    }
+
+    static void bindIds(PreparedStatement stmt, long[] ids) throws SQLException {
+        for (int i = 0; i < ids.length; i++) {
+            stmt.setLong(i + 1, ids[i]);
+        }
+    }
+
+    static Entity mapRow(ResultSet rs) throws SQLException {
+        Entity e = new Entity();
+        e.setId(rs.getLong("id"));
+        e.setName(rs.getString("name"));
+        e.setEmail(rs.getString("email"));
+        e.setStatus(rs.getInt("status"));
+        e.setActive(rs.getBoolean("active"));
+        e.setBalance(rs.getDouble("balance"));
+        e.setVersion(rs.getLong("version"));
+        return e;
+    }
+}
@@ -0,0 +1,8 @@
+package com.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public interface JdbcCall<T> {
+    T call(Connection connection) throws SQLException;
+}
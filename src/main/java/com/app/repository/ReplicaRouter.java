@@ -0,0 +1,213 @@
+package com.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only work to the replica with the fewest in-flight requests and
+ * everything else to the primary. A thread that has just written keeps reading
+ * from the primary for a short window so it always sees its own writes.
+ * With hedging enabled, a read that is slower than the configured latency
+ * percentile is repeated on a second replica and the first answer wins.
+ */
+public class ReplicaRouter {
+
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int MIN_SAMPLES_FOR_HEDGING = 32;
+    private static final int PERCENTILE_REFRESH_INTERVAL = 64;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ExecutorService executor;
+    private final AtomicIntegerArray outstanding;
+    private final AtomicInteger tieBreaker = new AtomicInteger();
+    private final AtomicLong hedgedReads = new AtomicLong();
+    private final ThreadLocal<long[]> lastWriteNanos = ThreadLocal.withInitial(() -> new long[] { Long.MIN_VALUE });
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyCursor;
+    private volatile long hedgeDelayNanos = -1;
+
+    private volatile double hedgePercentile;
+    private volatile long readYourWritesNanos = TimeUnit.SECONDS.toNanos(1);
+
+    public ReplicaRouter(DataSource primary, List<DataSource> replicas, ExecutorService executor) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.executor = executor;
+        this.outstanding = new AtomicIntegerArray(replicas.size());
+    }
+
+    public void enableHedging(double percentile) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Hedging percentile must be between 0 and 1");
+        }
+        this.hedgePercentile = percentile;
+    }
+
+    public void disableHedging() {
+        this.hedgePercentile = 0;
+    }
+
+    public void setReadYourWritesWindow(long duration, TimeUnit unit) {
+        this.readYourWritesNanos = unit.toNanos(duration);
+    }
+
+    public <T> T read(JdbcCall<T> call) throws SQLException {
+        if (replicas.isEmpty() || isPinnedToPrimary()) {
+            return onPrimary(call);
+        }
+        long delay = hedgeDelayNanos;
+        if (hedgePercentile == 0 || delay < 0 || replicas.size() < 2) {
+            return onReplica(pickReplica(-1), call);
+        }
+        return hedged(call, delay);
+    }
+
+    // Like read() but never hedged, for calls with side effects such as streaming rows out
+    public <T> T readOnce(JdbcCall<T> call) throws SQLException {
+        if (replicas.isEmpty() || isPinnedToPrimary()) {
+            return onPrimary(call);
+        }
+        return onReplica(pickReplica(-1), call);
+    }
+
+    public <T> T write(JdbcCall<T> call) throws SQLException {
+        try {
+            return onPrimary(call);
+        } finally {
+            lastWriteNanos.get()[0] = System.nanoTime();
+        }
+    }
+
+    public <T> T readFromPrimary(JdbcCall<T> call) throws SQLException {
+        return onPrimary(call);
+    }
+
+    public boolean isPinnedToPrimary() {
+        long last = lastWriteNanos.get()[0];
+        return last != Long.MIN_VALUE && System.nanoTime() - last < readYourWritesNanos;
+    }
+
+    public int getOutstanding(int replica) { return outstanding.get(replica); }
+    public long getHedgedReadCount() { return hedgedReads.get(); }
+    public long getHedgeDelayNanos() { return hedgeDelayNanos; }
+
+    private <T> T hedged(JdbcCall<T> call, long delayNanos) throws SQLException {
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>(2);
+        int first = pickReplica(-1);
+        futures.add(completion.submit(() -> onReplica(first, call)));
+        try {
+            Future<T> done = completion.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                int second = pickReplica(first);
+                futures.add(completion.submit(() -> onReplica(second, call)));
+                hedgedReads.incrementAndGet();
+            }
+            int pending = futures.size();
+            while (true) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    if (pending == 0) {
+                        if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+                        throw new SQLException("Replica read failed", e.getCause());
+                    }
+                    done = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for replica", e);
+        } finally {
+            for (Future<T> f : futures) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    private <T> T onPrimary(JdbcCall<T> call) throws SQLException {
+        try (Connection connection = primary.getConnection()) {
+            return call.call(connection);
+        }
+    }
+
+    private <T> T onReplica(int replica, JdbcCall<T> call) throws SQLException {
+        outstanding.incrementAndGet(replica);
+        long start = System.nanoTime();
+        try (Connection connection = replicas.get(replica).getConnection()) {
+            // pooled connections go back with the flag they were handed out with
+            boolean wasReadOnly = connection.isReadOnly();
+            if (!wasReadOnly) connection.setReadOnly(true);
+            T result;
+            try {
+                result = call.call(connection);
+            } catch (Throwable t) {
+                if (!wasReadOnly) {
+                    try {
+                        connection.setReadOnly(false);
+                    } catch (SQLException e) {
+                        t.addSuppressed(e);
+                    }
+                }
+                throw t;
+            }
+            if (!wasReadOnly) connection.setReadOnly(false);
+            recordLatency(System.nanoTime() - start);
+            return result;
+        } finally {
+            outstanding.decrementAndGet(replica);
+        }
+    }
+
+    private int pickReplica(int exclude) {
+        int n = replicas.size();
+        int offset = Math.floorMod(tieBreaker.getAndIncrement(), n);
+        int best = -1;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int candidate = (offset + i) % n;
+            if (candidate == exclude) continue;
+            int load = outstanding.get(candidate);
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private void recordLatency(long nanos) {
+        double percentile = hedgePercentile;
+        if (percentile == 0) return;
+        synchronized (latencies) {
+            latencies[latencyCursor] = nanos;
+            latencyCursor = (latencyCursor + 1) % LATENCY_SAMPLES;
+            if (latencyCount < LATENCY_SAMPLES) latencyCount++;
+            if (latencyCount >= MIN_SAMPLES_FOR_HEDGING && latencyCursor % PERCENTILE_REFRESH_INTERVAL == 0) {
+                long[] sorted = Arrays.copyOf(latencies, latencyCount);
+                Arrays.sort(sorted);
+                hedgeDelayNanos = sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.app.repository;
+
+import com.app.model.Account;
+import com.app.model.AccountSummary;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class RoutingAccountRepository extends AccountRepository {
+
+    private final ReplicaRouter router;
+
+    public RoutingAccountRepository(ReplicaRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Optional<Account> findById(long id) throws SQLException {
+        return router.read(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ID)) {
+                stmt.setLong(1, id);
+                ResultSet rs = stmt.executeQuery();
+                return rs.next() ? Optional.of(mapRow(rs)) : Optional.<Account>empty();
+            }
+        });
+    }
+
+    @Override
+    public List<Account> findAll() throws SQLException {
+        return router.read(connection -> {
+            List<Account> accounts = new ArrayList<>();
+            try (Statement stmt = connection.createStatement()) {
+                ResultSet rs = stmt.executeQuery(SELECT);
+                while (rs.next()) {
+                    accounts.add(mapRow(rs));
+                }
+            }
+            return accounts;
+        });
+    }
+
+    @Override
+    public Optional<AccountSummary> findSummaryById(long id) throws SQLException {
+        return router.read(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(SUMMARY_SELECT_BY_ID)) {
+                stmt.setLong(1, id);
+                ResultSet rs = stmt.executeQuery();
+                return rs.next() ? Optional.of(mapSummary(rs)) : Optional.<AccountSummary>empty();
+            }
+        });
+    }
+
+    @Override
+    public List<AccountSummary> findAllSummaries() throws SQLException {
+        return router.read(connection -> {
+            List<AccountSummary> summaries = new ArrayList<>();
+            try (Statement stmt = connection.createStatement()) {
+                ResultSet rs = stmt.executeQuery(SUMMARY_SELECT);
+                while (rs.next()) {
+                    summaries.add(mapSummary(rs));
+                }
+            }
+            return summaries;
+        });
+    }
+
+    // Not hedged: a second attempt would hand the same rows to the handler again
+    @Override
+    public void forEachSummary(RowHandler<AccountSummary> handler) throws SQLException, IOException {
+        try {
+            router.readOnce(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(SUMMARY_SELECT)) {
+                    stmt.setFetchSize(EntityRepository.STREAM_FETCH_SIZE);
+                    streamSummaries(stmt, handler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void forEachSummaryAfter(long afterAccountId, int maxRows, RowHandler<AccountSummary> handler) throws SQLException, IOException {
+        try {
+            router.readOnce(connection -> {
+                try (PreparedStatement stmt = EntityRepository.prepareAfter(connection, SUMMARY_SELECT_AFTER, afterAccountId, maxRows)) {
+                    streamSummaries(stmt, handler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
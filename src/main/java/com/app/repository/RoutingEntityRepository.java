@@ -0,0 +1,138 @@
+package com.app.repository;
+
+import com.app.model.Entity;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class RoutingEntityRepository extends EntityRepository {
+
+    private final ReplicaRouter router;
+
+    public RoutingEntityRepository(ReplicaRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Optional<Entity> findById(long id) throws SQLException {
+        return router.read(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ID)) {
+                stmt.setLong(1, id);
+                ResultSet rs = stmt.executeQuery();
+                return rs.next() ? Optional.of(mapRow(rs)) : Optional.<Entity>empty();
+            }
+        });
+    }
+
+    @Override
+    public void forEachAll(RowHandler<Entity> handler) throws SQLException, IOException {
+        stream(SELECT, null, handler);
+    }
+
+    @Override
+    public void forEachByStatus(int status, RowHandler<Entity> handler) throws SQLException, IOException {
+        stream(SELECT_BY_STATUS, status, handler);
+    }
+
+    @Override
+    public void forEachAfter(long afterId, int maxRows, RowHandler<Entity> handler) throws SQLException, IOException {
+        try {
+            router.readOnce(connection -> {
+                try (PreparedStatement stmt = prepareAfter(connection, SELECT_AFTER, afterId, maxRows)) {
+                    streamRows(stmt, handler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public List<Entity> findByIds(long[] ids) throws SQLException {
+        if (ids.length == 0) return new ArrayList<>();
+        return router.read(connection -> {
+            List<Entity> entities = new ArrayList<>(ids.length);
+            try (PreparedStatement stmt = connection.prepareStatement(selectByIds(SELECT, ids.length))) {
+                bindIds(stmt, ids);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    entities.add(mapRow(rs));
+                }
+            }
+            return entities;
+        });
+    }
+
+    @Override
+    public long findVersion(long id) throws SQLException {
+        return router.read(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_VERSION)) {
+                stmt.setLong(1, id);
+                ResultSet rs = stmt.executeQuery();
+                return rs.next() ? rs.getLong(1) : -1L;
+            }
+        });
+    }
+
+    @Override
+    public boolean update(Entity entity) throws SQLException {
+        return router.write(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(UPDATE)) {
+                return applyUpdate(stmt, entity);
+            }
+        });
+    }
+
+    @Override
+    public List<Entity> findAll() throws SQLException {
+        return router.read(connection -> {
+            List<Entity> entities = new ArrayList<>();
+            try (Statement stmt = connection.createStatement()) {
+                ResultSet rs = stmt.executeQuery(SELECT);
+                while (rs.next()) {
+                    entities.add(mapRow(rs));
+                }
+            }
+            return entities;
+        });
+    }
+
+    @Override
+    public List<Entity> findByStatus(int status) throws SQLException {
+        return router.read(connection -> {
+            List<Entity> entities = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_BY_STATUS)) {
+                stmt.setInt(1, status);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    entities.add(mapRow(rs));
+                }
+            }
+            return entities;
+        });
+    }
+
+    // Not hedged: a second attempt would hand the same rows to the handler again
+    private void stream(String sql, Integer status, RowHandler<Entity> handler) throws SQLException, IOException {
+        try {
+            router.readOnce(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setFetchSize(STREAM_FETCH_SIZE);
+                    if (status != null) stmt.setInt(1, status);
+                    streamRows(stmt, handler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.app.repository;
+
+import java.io.IOException;
+
+public interface RowHandler<T> {
+    void handle(T row) throws IOException;
+}
@@ -0,0 +1,431 @@
+package com.app.repository;
+
+import com.app.model.Entity;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.sql.DataSource;
+
+/**
+ * EntityRepository spread over several databases.
+ * Point lookups are routed to a single shard, either by id hash or by id range;
+ * scans and aggregates are scattered to every shard in parallel and gathered
+ * on the calling thread.
+ */
+public class ShardedEntityRepository extends EntityRepository {
+
+    private static final int STREAM_BUFFER = 1024;
+    private static final Object END_OF_SHARD = new Object();
+
+    private final List<DataSource> shards;
+    private final long[] rangeUpperBounds;
+    private final ExecutorService executor;
+    private final AtomicLongArray queryCounts;
+    private final AtomicLongArray totalNanos;
+    private final AtomicLongArray lastNanos;
+
+    public ShardedEntityRepository(List<DataSource> shards, ExecutorService executor) {
+        this(shards, null, executor);
+    }
+
+    /*
+     * rangeUpperBounds[i] is the exclusive upper id bound of shard i; the last shard
+     * takes every id above the final bound, so shards.size() - 1 bounds are expected.
+     */
+    public ShardedEntityRepository(List<DataSource> shards, long[] rangeUpperBounds, ExecutorService executor) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (rangeUpperBounds != null) {
+            if (rangeUpperBounds.length != shards.size() - 1) {
+                throw new IllegalArgumentException("Expected " + (shards.size() - 1) + " range bounds");
+            }
+            for (int i = 1; i < rangeUpperBounds.length; i++) {
+                if (rangeUpperBounds[i] <= rangeUpperBounds[i - 1]) {
+                    throw new IllegalArgumentException("Range bounds must be strictly ascending");
+                }
+            }
+        }
+        this.shards = new ArrayList<>(shards);
+        this.rangeUpperBounds = rangeUpperBounds != null ? rangeUpperBounds.clone() : null;
+        this.executor = executor;
+        this.queryCounts = new AtomicLongArray(shards.size());
+        this.totalNanos = new AtomicLongArray(shards.size());
+        this.lastNanos = new AtomicLongArray(shards.size());
+    }
+
+    @Override
+    public Optional<Entity> findById(long id) throws SQLException {
+        int shard = shardFor(id);
+        return timed(shard, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ID)) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? Optional.of(mapRow(rs)) : Optional.<Entity>empty();
+                }
+            }
+        });
+    }
+
+    // Ids are grouped by owning shard and each group is fetched in parallel, one query per shard
+    @Override
+    public List<Entity> findByIds(long[] ids) throws SQLException {
+        int[] counts = new int[shards.size()];
+        int[] owner = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            owner[i] = shardFor(ids[i]);
+            counts[owner[i]]++;
+        }
+        long[][] groups = new long[shards.size()][];
+        for (int s = 0; s < groups.length; s++) {
+            groups[s] = new long[counts[s]];
+            counts[s] = 0;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            groups[owner[i]][counts[owner[i]]++] = ids[i];
+        }
+
+        List<Future<List<Entity>>> futures = new ArrayList<>();
+        for (int s = 0; s < groups.length; s++) {
+            if (groups[s].length == 0) continue;
+            final int shard = s;
+            final long[] group = groups[s];
+            futures.add(executor.submit(() -> timed(shard, connection -> {
+                List<Entity> rows = new ArrayList<>(group.length);
+                try (PreparedStatement stmt = connection.prepareStatement(selectByIds(SELECT, group.length))) {
+                    bindIds(stmt, group);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            rows.add(mapRow(rs));
+                        }
+                    }
+                }
+                return rows;
+            })));
+        }
+
+        List<Entity> entities = new ArrayList<>(ids.length);
+        try {
+            for (Future<List<Entity>> f : futures) {
+                entities.addAll(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while gathering shard results", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new SQLException("Shard query failed", e.getCause());
+        } finally {
+            for (Future<List<Entity>> f : futures) {
+                f.cancel(true);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public long findVersion(long id) throws SQLException {
+        return timed(shardFor(id), connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_VERSION)) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : -1L;
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean update(Entity entity) throws SQLException {
+        return timed(shardFor(entity.getId()), connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(UPDATE)) {
+                return applyUpdate(stmt, entity);
+            }
+        });
+    }
+
+    @Override
+    public List<Entity> findAll() throws SQLException {
+        List<Entity> entities = new ArrayList<>();
+        try {
+            forEachAll(entities::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return entities;
+    }
+
+    @Override
+    public List<Entity> findByStatus(int status) throws SQLException {
+        List<Entity> entities = new ArrayList<>();
+        try {
+            forEachByStatus(status, entities::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return entities;
+    }
+
+    @Override
+    public void forEachAll(RowHandler<Entity> handler) throws SQLException, IOException {
+        stream(SELECT, stmt -> { }, handler);
+    }
+
+    @Override
+    public void forEachByStatus(int status, RowHandler<Entity> handler) throws SQLException, IOException {
+        stream(SELECT_BY_STATUS, stmt -> stmt.setInt(1, status), handler);
+    }
+
+    // Every shard is scanned in id order on the calling thread and the cursors are merged,
+    // so rows come out in global id order while only one row per shard is held
+    @Override
+    public void forEachAfter(long afterId, int maxRows, RowHandler<Entity> handler) throws SQLException, IOException {
+        List<ShardCursor> cursors = new ArrayList<>(shards.size());
+        PriorityQueue<ShardCursor> heads = new PriorityQueue<>(shards.size(), Comparator.comparingLong(c -> c.row.getId()));
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                // range shards holding only ids <= afterId have nothing to contribute
+                if (rangeUpperBounds != null && i < rangeUpperBounds.length && rangeUpperBounds[i] - 1 <= afterId) continue;
+                ShardCursor cursor = new ShardCursor(i);
+                cursors.add(cursor);
+                cursor.open(shards.get(i).getConnection(), afterId, maxRows);
+                if (cursor.advance()) heads.add(cursor);
+            }
+            long sent = 0;
+            while (!heads.isEmpty() && (maxRows <= 0 || sent < maxRows)) {
+                ShardCursor cursor = heads.poll();
+                handler.handle(cursor.row);
+                sent++;
+                if (cursor.advance()) heads.add(cursor);
+            }
+        } finally {
+            SQLException failure = null;
+            for (ShardCursor cursor : cursors) {
+                try {
+                    cursor.close();
+                } catch (SQLException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    public long count() throws SQLException {
+        long total = 0;
+        for (Number n : gather("SELECT COUNT(*) FROM entities", stmt -> { })) {
+            total += n.longValue();
+        }
+        return total;
+    }
+
+    public long countByStatus(int status) throws SQLException {
+        long total = 0;
+        for (Number n : gather("SELECT COUNT(*) FROM entities WHERE status = ?", stmt -> stmt.setInt(1, status))) {
+            total += n.longValue();
+        }
+        return total;
+    }
+
+    public double sumBalance() throws SQLException {
+        double total = 0;
+        for (Number n : gather("SELECT COALESCE(SUM(balance), 0) FROM entities", stmt -> { })) {
+            total += n.doubleValue();
+        }
+        return total;
+    }
+
+    public int getShardCount() { return shards.size(); }
+    public long getQueryCount(int shard) { return queryCounts.get(shard); }
+    public long getTotalQueryNanos(int shard) { return totalNanos.get(shard); }
+    public long getLastQueryNanos(int shard) { return lastNanos.get(shard); }
+
+    public int shardFor(long id) {
+        if (rangeUpperBounds != null) {
+            int pos = Arrays.binarySearch(rangeUpperBounds, id);
+            return pos >= 0 ? pos + 1 : -(pos + 1);
+        }
+        return (int) Long.remainderUnsigned(mix(id), shards.size());
+    }
+
+    // Rows are handed over through a bounded queue, so the caller sees them as soon as
+    // any shard produces them and memory stays flat however large the shards are.
+    private void stream(String sql, Binder binder, RowHandler<Entity> handler) throws SQLException, IOException {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(STREAM_BUFFER);
+        List<Future<?>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            final int shard = i;
+            futures.add(executor.submit(() -> {
+                try {
+                    timed(shard, connection -> {
+                        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                            binder.bind(stmt);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    queue.put(mapRow(rs));
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Shard " + shard + " scan interrupted", e);
+                        }
+                        return null;
+                    });
+                    queue.put(END_OF_SHARD);
+                } catch (SQLException | RuntimeException e) {
+                    queue.put(e instanceof SQLException ? e : new SQLException("Shard " + shard + " scan failed", e));
+                }
+                return null;
+            }));
+        }
+
+        int remaining = shards.size();
+        try {
+            while (remaining > 0) {
+                Object item = queue.take();
+                if (item == END_OF_SHARD) {
+                    remaining--;
+                } else if (item instanceof SQLException) {
+                    throw (SQLException) item;
+                } else {
+                    handler.handle((Entity) item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while gathering shard results", e);
+        } finally {
+            if (remaining > 0) {
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
+            }
+        }
+    }
+
+    private List<Number> gather(String sql, Binder binder) throws SQLException {
+        List<Future<Number>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            final int shard = i;
+            futures.add(executor.submit(() -> timed(shard, connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    binder.bind(stmt);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        return (Number) rs.getObject(1);
+                    }
+                }
+            })));
+        }
+
+        List<Number> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<Number> f : futures) {
+                results.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while gathering shard results", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new SQLException("Shard query failed", e.getCause());
+        } finally {
+            for (Future<Number> f : futures) {
+                f.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    private <T> T timed(int shard, JdbcCall<T> query) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = shards.get(shard).getConnection()) {
+            return query.call(connection);
+        } finally {
+            record(shard, System.nanoTime() - start);
+        }
+    }
+
+    private void record(int shard, long elapsed) {
+        queryCounts.incrementAndGet(shard);
+        totalNanos.addAndGet(shard, elapsed);
+        lastNanos.set(shard, elapsed);
+    }
+
+    private static long mix(long id) {
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        return id ^ (id >>> 33);
+    }
+
+    private final class ShardCursor {
+        final int shard;
+        final long start = System.nanoTime();
+        Connection connection;
+        PreparedStatement stmt;
+        ResultSet rs;
+        Entity row;
+
+        ShardCursor(int shard) {
+            this.shard = shard;
+        }
+
+        void open(Connection connection, long afterId, int maxRows) throws SQLException {
+            this.connection = connection;
+            this.stmt = prepareAfter(connection, SELECT_AFTER, afterId, maxRows);
+            this.rs = stmt.executeQuery();
+        }
+
+        boolean advance() throws SQLException {
+            row = rs.next() ? mapRow(rs) : null;
+            return row != null;
+        }
+
+        // Closes in reverse order of opening; the first failure is rethrown after all three
+        void close() throws SQLException {
+            if (connection == null) return;
+            SQLException failure = null;
+            try {
+                if (rs != null) {
+                    try {
+                        rs.close();
+                    } catch (SQLException e) {
+                        failure = e;
+                    }
+                }
+                if (stmt != null) {
+                    try {
+                        stmt.close();
+                    } catch (SQLException e) {
+                        if (failure == null) failure = e;
+                    }
+                }
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    if (failure == null) failure = e;
+                }
+                if (failure != null) throw failure;
+            } finally {
+                record(shard, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+}
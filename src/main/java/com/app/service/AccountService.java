@@ -1,7 +1,9 @@
 package com.app.service;
 
 import com.app.model.Account;
+import com.app.model.AccountSummary;
 import com.app.repository.AccountRepository;
+import com.app.util.PasswordScorer;
 import com.app.util.Sanitizer;
 import java.sql.SQLException;
 import java.util.List;
@@ -32,13 +34,13 @@ public class AccountService {
     }
     
     public String getMaskedSsn(long id) throws SQLException {
-        Optional<Account> account = repository.findById(id);
-        return account.map(Account::getMaskedSsn).orElse("***-**-****");
+        Optional<AccountSummary> summary = repository.findSummaryById(id);
+        return summary.map(AccountSummary::getMaskedSsn).orElse("***-**-****");
     }
     
     public String getMaskedAccountNumber(long id) throws SQLException {
-        Optional<Account> account = repository.findById(id);
-        return account.map(Account::getMaskedAccount).orElse("****");
+        Optional<AccountSummary> summary = repository.findSummaryById(id);
+        return summary.map(AccountSummary::getMaskedAccountNumber).orElse("****");
     }
     
     public int getSsnChecksum(long id) throws SQLException {
@@ -59,11 +61,20 @@ public class AccountService {
     }
     
     public List<String> getAllMaskedSsns() throws SQLException {
-        return repository.findAll().stream()
-            .map(Account::getMaskedSsn)
+        return repository.findAllSummaries().stream()
+            .map(AccountSummary::getMaskedSsn)
             .collect(Collectors.toList());
     }
 
+    // Number of accounts at each score from 0 to scorer.maxScore()
+    public int[] getPasswordStrengthHistogram(PasswordScorer scorer) throws SQLException {
+        int[] histogram = new int[scorer.maxScore() + 1];
+        for (Account account : repository.findAll()) {
+            histogram[scorer.score(account.getPassword())]++;
+        }
+        return histogram;
+    }
+
     // New methods for Privacy Violation scenarios
     public String getSsn(long id) throws SQLException {
         Optional<Account> account = repository.findById(id);
@@ -75,6 +86,12 @@ public class AccountService {
         return account.map(Account::getAccountNumber).orElse("");
     }
 
+    // Keyed pseudonym of the SSN; a memo hit skips both the SSN read and the HMAC.
+    // Code that changes an SSN must call hashing.invalidate(id, "ssn").
+    public String getSsnPseudonym(long id, HashingService hashing) throws SQLException {
+        return hashing.hmacBase64(id, "ssn", () -> getSsn(id));
+    }
+
     public String getPassword(long id) throws SQLException {
         Optional<Account> account = repository.findById(id);
         return account.map(Account::getPassword).orElse("");
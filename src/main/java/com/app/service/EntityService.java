@@ -41,6 +41,16 @@ public class EntityService {
         return entity.map(Entity::getCode).orElse(0);
     }
     
+    // -1 when the entity does not exist
+    public long getEntityVersion(long id) throws SQLException {
+        return repository.findVersion(id);
+    }
+
+    // False when the entity changed since it was read (its version no longer matches) or is gone
+    public boolean updateEntity(Entity entity) throws SQLException {
+        return repository.update(entity);
+    }
+
     public List<Long> getAllEntityIds() throws SQLException {
         return repository.findAll().stream()
             .map(Entity::getId)
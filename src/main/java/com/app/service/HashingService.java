@@ -0,0 +1,195 @@
+package com.app.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Digests and keyed hashes of text. Each thread keeps its own MessageDigest,
+ * Mac and UTF-8 encoder, and input is encoded into a small fixed buffer chunk
+ * by chunk, so hashing allocates no per-call byte[] copy of the text. In keyed
+ * mode, HMAC results are memoized per (account id, field) in a bounded LRU map
+ * that is checked before the value is even loaded. Only the HMAC is kept, so
+ * the memo never holds plaintext; an entry lives until it is evicted or
+ * invalidated by whoever changes the field.
+ */
+public class HashingService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int CHUNK = 512;
+
+    private final ThreadLocal<State> state;
+    private final Map<MemoKey, String> memo;
+    private long invalidations;  // guarded by memo
+    private final AtomicLong memoHits = new AtomicLong();
+
+    public HashingService() {
+        this("SHA-256");
+    }
+
+    public HashingService(String algorithm) {
+        this(algorithm, null, 0);
+    }
+
+    // Keyed mode: enables hmacBase64 and memoizes up to memoCapacity per-account results
+    public HashingService(byte[] hmacKey, int memoCapacity) {
+        this("SHA-256", hmacKey, memoCapacity);
+    }
+
+    private HashingService(String algorithm, byte[] hmacKey, int memoCapacity) {
+        byte[] key = hmacKey == null ? null : hmacKey.clone();
+        this.state = ThreadLocal.withInitial(() -> new State(algorithm, key));
+        this.state.get();  // fail fast on an unknown algorithm or bad key
+        this.memo = key == null ? null : new LinkedHashMap<MemoKey, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemoKey, String> eldest) {
+                return size() > memoCapacity;
+            }
+        };
+    }
+
+    public byte[] digest(CharSequence input) {
+        State s = state.get();
+        s.update(input, s.digest::update);
+        return s.digest.digest();
+    }
+
+    public String digestBase64(CharSequence input) {
+        return Base64.getEncoder().encodeToString(digest(input));
+    }
+
+    public String hmacBase64(CharSequence input) {
+        State s = keyedState();
+        s.update(input, s.mac::update);
+        return Base64.getEncoder().encodeToString(s.mac.doFinal());
+    }
+
+    public interface ValueLoader<E extends Exception> {
+        CharSequence load() throws E;
+    }
+
+    // Pseudonym for one field of one account. The memo is consulted before the value is
+    // loaded and holds only the HMAC, never the value; writers of the field call invalidate().
+    // The value is loaded outside the lock, so a result is only memoized when no invalidate()
+    // ran meanwhile: it may have been loaded before the change it would otherwise outlive.
+    public <E extends Exception> String hmacBase64(long accountId, String field, ValueLoader<E> loader) throws E {
+        keyedState();
+        MemoKey key = new MemoKey(accountId, field);
+        long seen;
+        synchronized (memo) {
+            String hash = memo.get(key);
+            if (hash != null) {
+                memoHits.incrementAndGet();
+                return hash;
+            }
+            seen = invalidations;
+        }
+        String hash = hmacBase64(loader.load());
+        synchronized (memo) {
+            if (invalidations == seen) memo.put(key, hash);
+        }
+        return hash;
+    }
+
+    public void invalidate(long accountId, String field) {
+        if (memo == null) return;
+        synchronized (memo) {
+            invalidations++;
+            memo.remove(new MemoKey(accountId, field));
+        }
+    }
+
+    public long getMemoHitCount() {
+        return memoHits.get();
+    }
+
+    private State keyedState() {
+        State s = state.get();
+        if (s.mac == null) throw new IllegalStateException("HashingService was created without an HMAC key");
+        return s;
+    }
+
+    private interface ByteSink {
+        void update(ByteBuffer bytes);
+    }
+
+    private static final class State {
+        final MessageDigest digest;
+        final Mac mac;
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+
+        State(String algorithm, byte[] key) {
+            try {
+                this.digest = MessageDigest.getInstance(algorithm);
+                if (key == null) {
+                    this.mac = null;
+                } else {
+                    this.mac = Mac.getInstance(HMAC_ALGORITHM);
+                    this.mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+                }
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException(e);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Invalid HMAC key", e);
+            }
+        }
+
+        // Feeds the UTF-8 encoding of input to sink one buffer at a time
+        void update(CharSequence input, ByteSink sink) {
+            CharBuffer chars = CharBuffer.wrap(input == null ? "" : input);
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, buffer, true);
+                drain(sink);
+            } while (result.isOverflow());
+            while (encoder.flush(buffer).isOverflow()) {
+                drain(sink);
+            }
+            drain(sink);
+        }
+
+        private void drain(ByteSink sink) {
+            buffer.flip();
+            if (buffer.hasRemaining()) sink.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static final class MemoKey {
+        final long accountId;
+        final String field;
+
+        MemoKey(long accountId, String field) {
+            this.accountId = accountId;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MemoKey)) return false;
+            MemoKey other = (MemoKey) o;
+            return accountId == other.accountId && field.equals(other.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(accountId) * 31 + field.hashCode();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed set of string keys resolved through a collision-free hash table built
+ * once up front. A seed is searched for so that every key lands in its own
+ * slot; a lookup then hashes the candidate, checks one slot and compares at
+ * most one key, without allocating. Input longer than the longest key misses
+ * before any hashing. Matching is either exact or ASCII/Unicode case-insensitive.
+ */
+public final class Allowlist<T> {
+
+    private static final int MAX_SEED_ATTEMPTS = 4096;
+
+    private final boolean ignoreCase;
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int seed;
+    private final int maxLength;
+
+    public Allowlist(Map<String, T> entries, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        int longest = 0;
+        for (String key : entries.keySet()) longest = Math.max(longest, key.length());
+        this.maxLength = longest;
+
+        int size = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        while (true) {
+            for (int s = 0; s < MAX_SEED_ATTEMPTS; s++) {
+                String[] k = new String[size];
+                Object[] v = new Object[size];
+                if (place(entries, s, size - 1, k, v)) {
+                    this.keys = k;
+                    this.values = v;
+                    this.mask = size - 1;
+                    this.seed = s;
+                    return;
+                }
+            }
+            size <<= 1;
+        }
+    }
+
+    public static <E extends Enum<E>> Allowlist<E> forEnum(E[] constants) {
+        Map<String, E> entries = new LinkedHashMap<>();
+        for (E e : constants) entries.put(e.name(), e);
+        return new Allowlist<>(entries, true);
+    }
+
+    public static Allowlist<String> of(boolean ignoreCase, String... values) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (String v : values) entries.put(v, v);
+        return new Allowlist<>(entries, ignoreCase);
+    }
+
+    public T get(CharSequence key) {
+        return get(key, null);
+    }
+
+    // Returns sentinel when key is not in the allowlist
+    @SuppressWarnings("unchecked")
+    public T get(CharSequence key, T sentinel) {
+        if (key == null || key.length() > maxLength) return sentinel;
+        int slot = hash(key, seed, ignoreCase) & mask;
+        String candidate = keys[slot];
+        return candidate != null && matches(candidate, key) ? (T) values[slot] : sentinel;
+    }
+
+    public boolean contains(CharSequence key) {
+        return get(key) != null;
+    }
+
+    private boolean place(Map<String, T> entries, int s, int m, String[] k, Object[] v) {
+        for (Map.Entry<String, T> e : entries.entrySet()) {
+            int slot = hash(e.getKey(), s, ignoreCase) & m;
+            if (k[slot] != null) {
+                if (matches(k[slot], e.getKey())) {
+                    throw new IllegalArgumentException("Duplicate allowlist key: " + e.getKey());
+                }
+                return false;
+            }
+            k[slot] = e.getKey();
+            v[slot] = e.getValue();
+        }
+        return true;
+    }
+
+    private boolean matches(String candidate, CharSequence key) {
+        int n = candidate.length();
+        if (key.length() != n) return false;
+        for (int i = 0; i < n; i++) {
+            char a = candidate.charAt(i);
+            char b = key.charAt(i);
+            if (a != b && (!ignoreCase || fold(a) != fold(b))) return false;
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence key, int seed, boolean ignoreCase) {
+        int h = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (int i = 0, n = key.length(); i < n; i++) {
+            char c = key.charAt(i);
+            h = (h ^ (ignoreCase ? fold(c) : c)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    // Same folding as String.equalsIgnoreCase
+    private static char fold(char c) {
+        if (c < 128) return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
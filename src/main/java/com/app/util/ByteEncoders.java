@@ -0,0 +1,159 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Hex and Base64 encodings of the UTF-8 bytes of a CharSequence, streamed to a
+ * Writer or OutputStream. Text is converted to UTF-8 a chunk at a time into a
+ * fixed buffer and each chunk is encoded through a lookup table, so memory use
+ * does not grow with the input and no intermediate byte[] or String is built.
+ * Output matches String.getBytes(UTF_8) followed by lower-case hex or
+ * Base64.getEncoder(), including '?' for unpaired surrogates.
+ */
+public final class ByteEncoders {
+
+    private static final int CHUNK = 3 * 512;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+
+    private ByteEncoders() {}
+
+    public static void hex(CharSequence input, Writer out) throws IOException {
+        hex(input, new Sink(out));
+    }
+
+    public static void hex(CharSequence input, OutputStream out) throws IOException {
+        hex(input, new Sink(out));
+    }
+
+    public static void base64(CharSequence input, Writer out) throws IOException {
+        base64(input, new Sink(out));
+    }
+
+    public static void base64(CharSequence input, OutputStream out) throws IOException {
+        base64(input, new Sink(out));
+    }
+
+    private static void hex(CharSequence input, Sink sink) throws IOException {
+        Utf8Chunks chunks = new Utf8Chunks(input);
+        byte[] bytes = chunks.bytes;
+        byte[] enc = sink.bytes;
+        while (!chunks.done()) {
+            int len = chunks.fill(0);
+            int n = 0;
+            for (int i = 0; i < len; i++) {
+                int b = bytes[i] & 0xFF;
+                enc[n++] = HEX[b >>> 4];
+                enc[n++] = HEX[b & 0xF];
+            }
+            sink.write(n);
+        }
+    }
+
+    private static void base64(CharSequence input, Sink sink) throws IOException {
+        Utf8Chunks chunks = new Utf8Chunks(input);
+        byte[] bytes = chunks.bytes;
+        byte[] enc = sink.bytes;
+        int carry = 0;
+        while (!chunks.done()) {
+            int len = chunks.fill(carry);
+            // Only whole 3-byte groups are encoded until the input is exhausted;
+            // the 0-2 leftover bytes are carried to the front of the next chunk
+            int whole = len - len % 3;
+            int n = 0;
+            for (int i = 0; i < whole; i += 3) {
+                int bits = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+                enc[n++] = BASE64[bits >>> 18];
+                enc[n++] = BASE64[(bits >>> 12) & 0x3F];
+                enc[n++] = BASE64[(bits >>> 6) & 0x3F];
+                enc[n++] = BASE64[bits & 0x3F];
+            }
+            sink.write(n);
+            carry = len - whole;
+            for (int i = 0; i < carry; i++) bytes[i] = bytes[whole + i];
+        }
+        if (carry > 0) {
+            int bits = (bytes[0] & 0xFF) << 16 | (carry == 2 ? (bytes[1] & 0xFF) << 8 : 0);
+            enc[0] = BASE64[bits >>> 18];
+            enc[1] = BASE64[(bits >>> 12) & 0x3F];
+            enc[2] = carry == 2 ? BASE64[(bits >>> 6) & 0x3F] : (byte) '=';
+            enc[3] = '=';
+            sink.write(4);
+        }
+    }
+
+    private static final class Utf8Chunks {
+        final byte[] bytes = new byte[CHUNK];
+        private final CharSequence in;
+        private final int end;
+        private int pos;
+
+        Utf8Chunks(CharSequence in) {
+            this.in = in;
+            this.end = in == null ? 0 : in.length();
+        }
+
+        boolean done() {
+            return pos >= end;
+        }
+
+        // Encodes chars after the first `from` bytes until fewer than 4 bytes of room remain; returns the byte count
+        int fill(int from) {
+            int n = from;
+            while (pos < end && n <= CHUNK - 4) {
+                char c = in.charAt(pos++);
+                if (c < 0x80) {
+                    bytes[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[n++] = (byte) (0xC0 | (c >> 6));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (!Character.isSurrogate(c)) {
+                    bytes[n++] = (byte) (0xE0 | (c >> 12));
+                    bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && pos < end && Character.isLowSurrogate(in.charAt(pos))) {
+                    int cp = Character.toCodePoint(c, in.charAt(pos++));
+                    bytes[n++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    bytes[n++] = '?';
+                }
+            }
+            return n;
+        }
+    }
+
+    // Encoded-chunk buffer in front of either a Writer or an OutputStream
+    private static final class Sink {
+        final byte[] bytes = new byte[2 * CHUNK];
+        private final Writer writer;
+        private final OutputStream stream;
+        private final char[] chars;
+
+        Sink(Writer writer) {
+            this.writer = writer;
+            this.stream = null;
+            this.chars = new char[bytes.length];
+        }
+
+        Sink(OutputStream stream) {
+            this.writer = null;
+            this.stream = stream;
+            this.chars = null;
+        }
+
+        void write(int len) throws IOException {
+            if (len == 0) return;
+            if (stream != null) {
+                stream.write(bytes, 0, len);
+                return;
+            }
+            for (int i = 0; i < len; i++) chars[i] = (char) bytes[i];
+            writer.write(chars, 0, len);
+        }
+    }
+}
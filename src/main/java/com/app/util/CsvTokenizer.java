@@ -0,0 +1,132 @@
+package com.app.util;
+
+import java.io.IOException;
+
+/**
+ * Lazy field tokenizer over a delimited CharSequence. Each call to next()
+ * advances to the following field and exposes its bounds in the input; nothing
+ * is copied, so callers append, escape or parse the field straight from the
+ * source text. Fields may be double-quoted, with "" standing for a literal
+ * quote; characters between a closing quote and the next delimiter are ignored.
+ * Tokenizing stops after the caller's field limit, leaving the rest unread.
+ */
+public class CsvTokenizer {
+
+    private final CharSequence input;
+    private final char delimiter;
+    private final int limit;
+    private final int length;
+
+    private int pos;
+    private int count;
+    private int start;
+    private int end;
+    private boolean quoted;
+    private boolean escapedQuotes;
+
+    public CsvTokenizer(CharSequence input) {
+        this(input, ',', Integer.MAX_VALUE);
+    }
+
+    public CsvTokenizer(CharSequence input, char delimiter, int limit) {
+        this.input = input;
+        this.delimiter = delimiter;
+        this.limit = limit;
+        this.length = input == null ? 0 : input.length();
+        this.pos = input == null ? -1 : 0;
+    }
+
+    public boolean next() {
+        if (pos < 0 || pos > length || count >= limit) return false;
+        count++;
+        quoted = pos < length && input.charAt(pos) == '"';
+        escapedQuotes = false;
+        if (!quoted) {
+            start = pos;
+            while (pos < length && input.charAt(pos) != delimiter) pos++;
+            end = pos;
+        } else {
+            start = ++pos;
+            end = length;
+            while (pos < length) {
+                if (input.charAt(pos) == '"') {
+                    if (pos + 1 < length && input.charAt(pos + 1) == '"') {
+                        escapedQuotes = true;
+                        pos += 2;
+                        continue;
+                    }
+                    end = pos;
+                    break;
+                }
+                pos++;
+            }
+            while (pos < length && input.charAt(pos) != delimiter) pos++;
+        }
+        pos++;  // past the delimiter; pos > length once the last field is consumed
+        return true;
+    }
+
+    // Zero-based index of the current field
+    public int index() { return count - 1; }
+    public int start() { return start; }
+    public int end() { return end; }
+    public boolean isQuoted() { return quoted; }
+    public boolean isEmpty() { return start == end; }
+
+    public boolean parseInt(ParsedNumber out) {
+        return NumberParser.parseLong(input, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, false, out);
+    }
+
+    public boolean parseLong(ParsedNumber out) {
+        return NumberParser.parseLong(input, start, end, Long.MIN_VALUE, Long.MAX_VALUE, false, out);
+    }
+
+    public boolean parseInt(int min, int max, ParsedNumber out) {
+        return NumberParser.parseLong(input, start, end, min, max, true, out);
+    }
+
+    public boolean parseDouble(ParsedNumber out) {
+        return NumberParser.parseDouble(input, start, end, out);
+    }
+
+    public void appendField(Appendable out) throws IOException {
+        if (!escapedQuotes) {
+            TextKernel.appendRange(input, start, end, out);
+            return;
+        }
+        int run = start;
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) == '"') {
+                TextKernel.appendRange(input, run, i + 1, out);
+                run = ++i + 1;
+            }
+        }
+        TextKernel.appendRange(input, run, end, out);
+    }
+
+    public void appendFieldHtml(Appendable out) throws IOException {
+        if (!escapedQuotes) {
+            Sanitizer.escapeHtml(input, start, end, out);
+            return;
+        }
+        int run = start;
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) == '"') {
+                Sanitizer.escapeHtml(input, run, i + 1, out);
+                run = ++i + 1;
+            }
+        }
+        Sanitizer.escapeHtml(input, run, end, out);
+    }
+
+    public String field() {
+        if (!escapedQuotes) return input.subSequence(start, end).toString();
+        StringBuilder sb = new StringBuilder(end - start);
+        try {
+            appendField(sb);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+}
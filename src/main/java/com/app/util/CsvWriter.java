@@ -0,0 +1,124 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming RFC 4180 CSV output over a Writer, the counterpart of
+ * CsvTokenizer. Fields go through a small char buffer, records end in CRLF,
+ * and text fields are quoted only when they contain a delimiter, quote or
+ * line break. Text starting with = + - @ or a tab/CR is prefixed with a single
+ * quote so spreadsheets show it instead of evaluating it as a formula; numeric
+ * fields are never touched.
+ *
+ *   csv.field(id).field(name).endRecord();
+ */
+public final class CsvWriter {
+
+    private final Writer out;
+    private final char[] buf;
+    private final char delimiter;
+    private int pos;
+    private boolean recordStarted;
+
+    public CsvWriter(Writer out) {
+        this(out, ',', 4096);
+    }
+
+    public CsvWriter(Writer out, char delimiter, int bufferSize) {
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+        }
+        this.out = out;
+        this.delimiter = delimiter;
+        this.buf = new char[Math.max(bufferSize, 32)];
+    }
+
+    // null writes an empty field
+    public CsvWriter field(CharSequence value) throws IOException {
+        separator();
+        if (value == null || value.length() == 0) return this;
+        boolean guard = isFormulaStart(value.charAt(0));
+        if (guard || needsQuotes(value)) {
+            put('"');
+            if (guard) put('\'');
+            for (int i = 0, n = value.length(); i < n; i++) {
+                char c = value.charAt(i);
+                if (c == '"') put('"');
+                put(c);
+            }
+            put('"');
+        } else {
+            raw(value);
+        }
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        raw(Long.toString(value));
+        return this;
+    }
+
+    // Non-finite values are written as an empty field
+    public CsvWriter field(double value) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) return this;
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            if (value == 0 && Double.doubleToRawLongBits(value) < 0) put('-');
+            raw(Long.toString((long) value));
+        } else {
+            raw(Double.toString(value));
+        }
+        return this;
+    }
+
+    public CsvWriter field(boolean value) throws IOException {
+        separator();
+        raw(value ? "true" : "false");
+        return this;
+    }
+
+    public CsvWriter endRecord() throws IOException {
+        put('\r');
+        put('\n');
+        recordStarted = false;
+        return this;
+    }
+
+    // Hands buffered output to the underlying Writer without flushing it
+    public void flush() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private void separator() throws IOException {
+        if (recordStarted) put(delimiter);
+        recordStarted = true;
+    }
+
+    private boolean needsQuotes(CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\r' || c == '\n') return true;
+        }
+        return false;
+    }
+
+    private static boolean isFormulaStart(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    private void raw(CharSequence s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (pos == buf.length) flush();
+        buf[pos++] = c;
+    }
+}
@@ -0,0 +1,12 @@
+package com.app.util;
+
+import java.io.IOException;
+
+public interface Encoder {
+
+    String encode(CharSequence input);
+
+    void encode(CharSequence input, Appendable out) throws IOException;
+
+    void encode(CharSequence input, int start, int end, Appendable out) throws IOException;
+}
@@ -0,0 +1,69 @@
+package com.app.util;
+
+public final class Encoders {
+
+    // & < > " ' as named entities, apostrophe as &#x27;
+    public static final Encoder HTML = new TableEncoder(htmlTable("&#x27;"), TableEncoder.NonAscii.PASS);
+
+    // Same as HTML but with the decimal &#39; apostrophe
+    public static final Encoder HTML_DECIMAL = new TableEncoder(htmlTable("&#39;"), TableEncoder.NonAscii.PASS);
+
+    // Every char that is not a letter or digit as a decimal character reference
+    public static final Encoder HTML_ATTRIBUTE = new TableEncoder(attributeTable(), TableEncoder.NonAscii.REFERENCE_UNLESS_LETTER_OR_DIGIT);
+
+    // Body of a quoted JavaScript string literal
+    public static final Encoder JAVASCRIPT = new TableEncoder(
+            table("\\", "\\\\", "'", "\\'", "\"", "\\\"", "\n", "\\n", "\r", "\\r"), TableEncoder.NonAscii.PASS);
+
+    // Body of a JSON string
+    public static final Encoder JSON = new TableEncoder(
+            table("\\", "\\\\", "\"", "\\\"", "\n", "\\n", "\r", "\\r", "\t", "\\t"), TableEncoder.NonAscii.PASS);
+
+    // Keeps [A-Za-z0-9#] for CSS color/identifier values and drops everything else
+    public static final Encoder CSS_FILTER = new TableEncoder(cssFilterTable(), TableEncoder.NonAscii.DROP);
+
+    // application/x-www-form-urlencoded, identical to URLEncoder.encode(input, "UTF-8")
+    public static final Encoder FORM_URL = new TableEncoder(formUrlTable(), TableEncoder.NonAscii.PERCENT_UTF8);
+
+    private Encoders() {}
+
+    private static String[] table(String... pairs) {
+        String[] t = new String[128];
+        for (int i = 0; i < pairs.length; i += 2) {
+            t[pairs[i].charAt(0)] = pairs[i + 1];
+        }
+        return t;
+    }
+
+    private static String[] htmlTable(String apostrophe) {
+        return table("&", "&amp;", "<", "&lt;", ">", "&gt;", "\"", "&quot;", "'", apostrophe);
+    }
+
+    private static String[] attributeTable() {
+        String[] t = new String[128];
+        for (char c = 0; c < 128; c++) {
+            if (!Character.isLetterOrDigit(c)) t[c] = "&#" + (int) c + ";";
+        }
+        return t;
+    }
+
+    private static String[] cssFilterTable() {
+        String[] t = new String[128];
+        for (char c = 0; c < 128; c++) {
+            if (!Character.isLetterOrDigit(c) && c != '#') t[c] = "";
+        }
+        return t;
+    }
+
+    private static String[] formUrlTable() {
+        String[] t = new String[128];
+        for (char c = 0; c < 128; c++) {
+            if (c == ' ') {
+                t[c] = "+";
+            } else if (!Character.isLetterOrDigit(c) && c != '.' && c != '-' && c != '*' && c != '_') {
+                t[c] = String.format("%%%02X", (int) c);
+            }
+        }
+        return t;
+    }
+}
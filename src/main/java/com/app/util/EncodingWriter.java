@@ -0,0 +1,137 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that encodes each value for the context it is written into.
+ * Markup goes through the plain write methods untouched; untrusted values go
+ * through writeHtml, writeHtmlAttribute, writeJavaScript, writeCss or
+ * writeUrlComponent, which run the matching {@link Encoders} table straight
+ * into an internal buffer, so no escaped copy of the value is ever built.
+ * The output is identical to the String form of the same encoder.
+ */
+public class EncodingWriter extends Writer {
+
+    private final Writer out;
+    private final char[] buf;
+    private int pos;
+
+    public EncodingWriter(Writer out) {
+        this(out, 1024);
+    }
+
+    public EncodingWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buf = new char[Math.max(bufferSize, 16)];
+    }
+
+    // Encoders.HTML: & < > " ' as entities
+    public EncodingWriter writeHtml(CharSequence value) throws IOException {
+        Encoders.HTML.encode(value, this);
+        return this;
+    }
+
+    // Encoders.HTML_ATTRIBUTE: anything that is not a letter or digit as a character reference
+    public EncodingWriter writeHtmlAttribute(CharSequence value) throws IOException {
+        Encoders.HTML_ATTRIBUTE.encode(value, this);
+        return this;
+    }
+
+    // Encoders.JAVASCRIPT: body of a quoted JavaScript string literal
+    public EncodingWriter writeJavaScript(CharSequence value) throws IOException {
+        Encoders.JAVASCRIPT.encode(value, this);
+        return this;
+    }
+
+    // Encoders.CSS_FILTER: keeps [A-Za-z0-9#] and drops everything else
+    public EncodingWriter writeCss(CharSequence value) throws IOException {
+        Encoders.CSS_FILTER.encode(value, this);
+        return this;
+    }
+
+    // Encoders.FORM_URL: same bytes as URLEncoder.encode(value, "UTF-8")
+    public EncodingWriter writeUrlComponent(CharSequence value) throws IOException {
+        Encoders.FORM_URL.encode(value, this);
+        return this;
+    }
+
+    public EncodingWriter writeNumber(long value) throws IOException {
+        if (value < 0) {
+            put('-');
+            if (value == Long.MIN_VALUE) {
+                write("9223372036854775808");
+                return this;
+            }
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            put((char) ('0' + (value / divisor) % 10));
+        }
+        return this;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        put((char) c);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off, end = off + len; i < end; i++) {
+            put(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (len >= buf.length) {
+            flushBuffer();
+            out.write(cbuf, off, len);
+            return;
+        }
+        if (pos + len > buf.length) flushBuffer();
+        System.arraycopy(cbuf, off, buf, pos, len);
+        pos += len;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) return super.append(csq, start, end);
+        for (int i = start; i < end; i++) {
+            put(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        return csq == null ? super.append(csq) : append(csq, 0, csq.length());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+
+    private void put(char c) throws IOException {
+        if (pos == buf.length) flushBuffer();
+        buf[pos++] = c;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowlist HTML sanitizer built on a forward-only tokenizer.
+ * Every input char is looked at a bounded number of times and the only state
+ * kept is a fixed-size stack of open tags, so run time is linear and memory is
+ * bounded whatever the nesting. Tags and attributes outside the allowlist are
+ * dropped (their text is kept), raw-text elements such as script and style are
+ * dropped with their content, and the output is always balanced.
+ */
+public class HtmlSanitizer {
+
+    public static final int DEFAULT_MAX_DEPTH = 100;
+
+    private static final int MAX_NAME_LENGTH = 32;
+    private static final int MAX_ENTITY_LENGTH = 32;
+    private static final Set<String> RAW_TEXT = setOf("script", "style", "textarea", "title", "xmp", "iframe",
+            "noembed", "noframes", "noscript", "plaintext", "template");
+    private static final Set<String> VOID = setOf("area", "br", "col", "hr", "img", "wbr", "input", "meta",
+            "link", "base", "embed", "param", "source", "track");
+    private static final Set<String> URL_ATTRIBUTES = setOf("href", "src", "cite", "action", "formaction",
+            "background", "poster", "longdesc");
+    private static final String[] SAFE_PROTOCOLS = { "http:", "https:", "mailto:", "ftp:" };
+
+    private final Set<String> allowedTags;
+    private final Map<String, Set<String>> allowedAttributes;
+    private final int maxDepth;
+
+    public HtmlSanitizer(Set<String> allowedTags, Map<String, Set<String>> allowedAttributes) {
+        this(allowedTags, allowedAttributes, DEFAULT_MAX_DEPTH);
+    }
+
+    public HtmlSanitizer(Set<String> allowedTags, Map<String, Set<String>> allowedAttributes, int maxDepth) {
+        this.allowedTags = lowerCase(allowedTags);
+        this.allowedAttributes = new HashMap<>();
+        for (Map.Entry<String, Set<String>> e : allowedAttributes.entrySet()) {
+            this.allowedAttributes.put(e.getKey().toLowerCase(Locale.ROOT), lowerCase(e.getValue()));
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    // Same tags and attributes as Jsoup's Safelist.basic()
+    public static HtmlSanitizer basic() {
+        Map<String, Set<String>> attributes = new HashMap<>();
+        attributes.put("a", setOf("href"));
+        attributes.put("blockquote", setOf("cite"));
+        attributes.put("q", setOf("cite"));
+        return new HtmlSanitizer(setOf("a", "b", "blockquote", "br", "cite", "code", "dd", "dl", "dt", "em",
+                "i", "li", "ol", "p", "pre", "q", "small", "span", "strike", "strong", "sub", "sup", "u", "ul"),
+                attributes);
+    }
+
+    public String sanitize(CharSequence input) {
+        if (input == null) return "";
+        StringWriter out = new StringWriter(input.length());
+        try {
+            sanitize(input, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // StringWriter never throws
+        }
+        return out.toString();
+    }
+
+    public void sanitize(CharSequence input, Writer out) throws IOException {
+        if (input == null) return;
+        new Pass(input, out).run();
+    }
+
+    private class Pass {
+        private final CharSequence in;
+        private final Writer out;
+        private final int n;
+        private final String[] open = new String[maxDepth];
+        private int depth;
+
+        Pass(CharSequence in, Writer out) {
+            this.in = in;
+            this.out = out;
+            this.n = in.length();
+        }
+
+        void run() throws IOException {
+            int i = 0;
+            int textStart = 0;
+            while (i < n) {
+                if (in.charAt(i) != '<') {
+                    i++;
+                    continue;
+                }
+                writeText(textStart, i);
+                int next = i + 1;
+                char c = next < n ? in.charAt(next) : 0;
+                if (startsWith(i, "<!--")) {
+                    int close = indexOf("-->", i + 4);
+                    i = close < 0 ? n : close + 3;
+                } else if (c == '!' || c == '?') {
+                    i = skipPast(next, '>');
+                } else if (c == '/' && next + 1 < n && isAsciiLetter(in.charAt(next + 1))) {
+                    int nameEnd = scanName(next + 1);
+                    String name = tagName(next + 1, nameEnd);
+                    i = skipPast(nameEnd, '>');
+                    closeTag(name);
+                } else if (isAsciiLetter(c)) {
+                    i = startTag(next);
+                } else {
+                    out.write("&lt;");
+                    i = next;
+                }
+                textStart = i;
+            }
+            writeText(textStart, n);
+            while (depth > 0) {
+                writeEndTag(open[--depth]);
+            }
+        }
+
+        private int startTag(int nameStart) throws IOException {
+            int nameEnd = scanName(nameStart);
+            String name = tagName(nameStart, nameEnd);
+            boolean isVoid = name != null && VOID.contains(name);
+            boolean rawText = name != null && RAW_TEXT.contains(name);
+            boolean allowed = name != null && !rawText && allowedTags.contains(name) && (isVoid || depth < maxDepth);
+            Set<String> attributes = allowed ? allowedAttributes.get(name) : null;
+            if (allowed) {
+                out.write('<');
+                out.write(name);
+            }
+
+            int j = nameEnd;
+            while (j < n) {
+                char c = in.charAt(j);
+                if (c == '>') {
+                    j++;
+                    break;
+                }
+                if (isSpace(c) || c == '/') {
+                    j++;
+                    continue;
+                }
+                int attrStart = j;
+                while (j < n && !isSpace(in.charAt(j)) && "=>/".indexOf(in.charAt(j)) < 0) j++;
+                if (j == attrStart) j++;  // stray '=' before any name
+                int attrEnd = j;
+                while (j < n && isSpace(in.charAt(j))) j++;
+                int valueStart = -1;
+                int valueEnd = -1;
+                if (j < n && in.charAt(j) == '=') {
+                    j++;
+                    while (j < n && isSpace(in.charAt(j))) j++;
+                    if (j < n && (in.charAt(j) == '"' || in.charAt(j) == '\'')) {
+                        char quote = in.charAt(j);
+                        valueStart = ++j;
+                        while (j < n && in.charAt(j) != quote) j++;
+                        valueEnd = j;
+                        if (j < n) j++;
+                    } else {
+                        valueStart = j;
+                        while (j < n && !isSpace(in.charAt(j)) && in.charAt(j) != '>') j++;
+                        valueEnd = j;
+                    }
+                }
+                if (attributes != null && attrEnd - attrStart <= MAX_NAME_LENGTH) {
+                    writeAttribute(in.subSequence(attrStart, attrEnd).toString().toLowerCase(Locale.ROOT), attributes, valueStart, valueEnd);
+                }
+            }
+
+            if (allowed) {
+                out.write('>');
+                if (!isVoid) open[depth++] = name;
+            }
+            return rawText ? skipRawText(j, name) : j;
+        }
+
+        private void writeAttribute(String attr, Set<String> attributes, int valueStart, int valueEnd) throws IOException {
+            if (!attributes.contains(attr)) return;
+            if (URL_ATTRIBUTES.contains(attr) && (valueStart < 0 || !hasSafeProtocol(valueStart, valueEnd))) return;
+            out.write(' ');
+            out.write(attr);
+            if (valueStart >= 0) {
+                out.write("=\"");
+                writeText(valueStart, valueEnd);
+                out.write('"');
+            }
+        }
+
+        private void closeTag(String name) throws IOException {
+            if (name == null) return;
+            for (int k = depth - 1; k >= 0; k--) {
+                if (open[k].equals(name)) {
+                    while (depth > k) {
+                        writeEndTag(open[--depth]);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void writeEndTag(String name) throws IOException {
+            out.write("</");
+            out.write(name);
+            out.write('>');
+        }
+
+        // Text and attribute values: markup characters escaped, well-formed entity references kept
+        private void writeText(int start, int end) throws IOException {
+            int run = start;
+            for (int i = start; i < end; i++) {
+                if (in.charAt(i) != '&') continue;
+                Encoders.HTML.encode(in, run, i, out);
+                int entityEnd = entityEnd(i, end);
+                if (entityEnd > 0) {
+                    for (int k = i; k < entityEnd; k++) out.write(in.charAt(k));
+                    i = entityEnd - 1;
+                } else {
+                    out.write("&amp;");
+                }
+                run = i + 1;
+            }
+            Encoders.HTML.encode(in, run, end, out);
+        }
+
+        // Exclusive end of &name; &#123; or &#x1F; starting at amp, or -1
+        private int entityEnd(int amp, int end) {
+            int limit = Math.min(end, amp + MAX_ENTITY_LENGTH);
+            int j = amp + 1;
+            if (j < limit && in.charAt(j) == '#') {
+                j++;
+                boolean hex = j < limit && (in.charAt(j) == 'x' || in.charAt(j) == 'X');
+                if (hex) j++;
+                int digits = j;
+                while (j < limit && (hex ? Character.digit(in.charAt(j), 16) >= 0 : isAsciiDigit(in.charAt(j)))) j++;
+                if (j == digits) return -1;
+            } else {
+                if (j >= limit || !isAsciiLetter(in.charAt(j))) return -1;
+                while (j < limit && (isAsciiLetter(in.charAt(j)) || isAsciiDigit(in.charAt(j)))) j++;
+            }
+            return j < limit && in.charAt(j) == ';' ? j + 1 : -1;
+        }
+
+        private boolean hasSafeProtocol(int start, int end) {
+            while (start < end && in.charAt(start) <= ' ') start++;
+            for (String protocol : SAFE_PROTOCOLS) {
+                if (end - start >= protocol.length() && regionMatches(start, protocol)) return true;
+            }
+            return false;
+        }
+
+        private int skipRawText(int from, String name) {
+            for (int j = indexOf("</", from); j >= 0; j = indexOf("</", j + 2)) {
+                int nameEnd = j + 2 + name.length();
+                if (nameEnd <= n && regionMatches(j + 2, name) && (nameEnd == n || !isNameChar(in.charAt(nameEnd)))) {
+                    return skipPast(nameEnd, '>');
+                }
+            }
+            return n;
+        }
+
+        private int scanName(int from) {
+            int j = from;
+            while (j < n && isNameChar(in.charAt(j))) j++;
+            return j;
+        }
+
+        private String tagName(int start, int end) {
+            if (end - start > MAX_NAME_LENGTH) return null;
+            return in.subSequence(start, end).toString().toLowerCase(Locale.ROOT);
+        }
+
+        private int skipPast(int from, char c) {
+            for (int j = from; j < n; j++) {
+                if (in.charAt(j) == c) return j + 1;
+            }
+            return n;
+        }
+
+        private int indexOf(String s, int from) {
+            for (int j = from; j + s.length() <= n; j++) {
+                if (startsWith(j, s)) return j;
+            }
+            return -1;
+        }
+
+        private boolean startsWith(int at, String s) {
+            if (at + s.length() > n) return false;
+            for (int k = 0; k < s.length(); k++) {
+                if (in.charAt(at + k) != s.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        // Case-insensitive match against a lower-case ASCII literal
+        private boolean regionMatches(int at, String lower) {
+            for (int k = 0; k < lower.length(); k++) {
+                char c = in.charAt(at + k);
+                if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+                if (c != lower.charAt(k)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNameChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '-' || c == ':';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static Set<String> setOf(String... values) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(values)));
+    }
+
+    private static Set<String> lowerCase(Set<String> values) {
+        Set<String> result = new HashSet<>();
+        for (String v : values) result.add(v.toLowerCase(Locale.ROOT));
+        return result;
+    }
+}
@@ -0,0 +1,265 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Markup fragment compiled once into UTF-8 byte segments separated by typed
+ * slots, then rendered straight to an OutputStream. Slots are written as
+ * {int} or {long} (integers), {double:N} (fixed N decimals, like "%.Nf" in
+ * Locale.ROOT) and {text} (HTML-escaped). Numbers are formatted into a small
+ * scratch buffer without creating Strings. Output is UTF-8, so templates with
+ * text slots need a UTF-8 response encoding.
+ *
+ *   HtmlTemplate t = HtmlTemplate.compile("<div class=\"status-{int}\">{int}</div>");
+ *   t.render(out).value(status).value(status).finish();
+ */
+public final class HtmlTemplate {
+
+    private static final int INTEGER = 0;
+    private static final int DOUBLE = 1;
+    private static final int TEXT = 2;
+
+    private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L };
+    private static final double FAST_DOUBLE_LIMIT = 1L << 40;
+
+    private final byte[][] segments;
+    private final int[] slotTypes;
+    private final int[] decimals;
+
+    private HtmlTemplate(byte[][] segments, int[] slotTypes, int[] decimals) {
+        this.segments = segments;
+        this.slotTypes = slotTypes;
+        this.decimals = decimals;
+    }
+
+    public static HtmlTemplate compile(String pattern) {
+        List<byte[]> segments = new ArrayList<>();
+        List<int[]> slots = new ArrayList<>();
+        int literalStart = 0;
+        int i = pattern.indexOf('{');
+        while (i >= 0) {
+            int close = pattern.indexOf('}', i);
+            if (close < 0) throw new IllegalArgumentException("Unclosed slot at " + i + ": " + pattern);
+            int[] slot = parseSlot(pattern.substring(i + 1, close));
+            if (slot == null) {
+                // not a slot, keep the brace as literal text
+                i = pattern.indexOf('{', i + 1);
+                continue;
+            }
+            segments.add(pattern.substring(literalStart, i).getBytes(StandardCharsets.UTF_8));
+            slots.add(slot);
+            literalStart = close + 1;
+            i = pattern.indexOf('{', literalStart);
+        }
+        segments.add(pattern.substring(literalStart).getBytes(StandardCharsets.UTF_8));
+
+        int[] types = new int[slots.size()];
+        int[] places = new int[slots.size()];
+        for (int k = 0; k < types.length; k++) {
+            types[k] = slots.get(k)[0];
+            places[k] = slots.get(k)[1];
+        }
+        return new HtmlTemplate(segments.toArray(new byte[0][]), types, places);
+    }
+
+    // {int} {long} {text} {double:N}; null for anything else
+    private static int[] parseSlot(String spec) {
+        if (spec.equals("int") || spec.equals("long")) return new int[] { INTEGER, 0 };
+        if (spec.equals("text")) return new int[] { TEXT, 0 };
+        if (spec.startsWith("double:") && spec.length() == 8) {
+            int places = spec.charAt(7) - '0';
+            if (places >= 0 && places < POWERS_OF_TEN.length) return new int[] { DOUBLE, places };
+        }
+        return null;
+    }
+
+    public int getSlotCount() {
+        return slotTypes.length;
+    }
+
+    // Writes the leading segment; fill the slots in order and call finish()
+    public Renderer render(OutputStream out) throws IOException {
+        Renderer r = new Renderer(out);
+        out.write(segments[0]);
+        return r;
+    }
+
+    public void render(OutputStream out, long value) throws IOException {
+        render(out).value(value).finish();
+    }
+
+    public void render(OutputStream out, long first, long second) throws IOException {
+        render(out).value(first).value(second).finish();
+    }
+
+    public final class Renderer implements Appendable {
+        private final OutputStream out;
+        private final byte[] scratch = new byte[64];
+        private int pos;
+        private int slot;
+        private char highSurrogate;
+
+        Renderer(OutputStream out) {
+            this.out = out;
+        }
+
+        public Renderer value(long v) throws IOException {
+            int type = next();
+            if (type == DOUBLE) return value((double) v);
+            if (type != INTEGER) throw new IllegalStateException("Slot " + slot + " is not numeric");
+            putLong(v);
+            return advance();
+        }
+
+        public Renderer value(double v) throws IOException {
+            if (next() != DOUBLE) throw new IllegalStateException("Slot " + slot + " is not a {double:N} slot");
+            putFixed(v, decimals[slot]);
+            return advance();
+        }
+
+        public Renderer text(CharSequence s) throws IOException {
+            if (next() != TEXT) throw new IllegalStateException("Slot " + slot + " is not a {text} slot");
+            Encoders.HTML.encode(s, this);
+            if (highSurrogate != 0) putByte('?');
+            highSurrogate = 0;
+            return advance();
+        }
+
+        public void finish() throws IOException {
+            if (slot != slotTypes.length) {
+                throw new IllegalStateException("Template has " + slotTypes.length + " slots, " + slot + " filled");
+            }
+        }
+
+        private int next() {
+            if (slot >= slotTypes.length) throw new IllegalStateException("All " + slotTypes.length + " slots already filled");
+            return slotTypes[slot];
+        }
+
+        private Renderer advance() throws IOException {
+            flushScratch();
+            out.write(segments[++slot]);
+            return this;
+        }
+
+        private void putLong(long v) throws IOException {
+            if (v < 0) {
+                putByte('-');
+                if (v == Long.MIN_VALUE) {
+                    putAscii("9223372036854775808");
+                    return;
+                }
+                v = -v;
+            }
+            putDigits(v, 1);
+        }
+
+        // At least minDigits digits, zero-padded
+        private void putDigits(long v, int minDigits) throws IOException {
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) digits++;
+            for (int k = digits; k < minDigits; k++) putByte('0');
+            if (pos + digits > scratch.length) flushScratch();
+            for (int k = pos + digits - 1; k >= pos; k--) {
+                scratch[k] = (byte) ('0' + v % 10);
+                v /= 10;
+            }
+            pos += digits;
+        }
+
+        // Same digits as String.format(Locale.ROOT, "%.Nf", v): the shortest decimal
+        // representation of v rounded half-up. Values near a rounding tie, very large
+        // values and NaN/Infinity take the formatter path.
+        private void putFixed(double v, int places) throws IOException {
+            long scale = POWERS_OF_TEN[places];
+            double scaled = Math.abs(v) * scale;
+            if (scaled < FAST_DOUBLE_LIMIT) {
+                long whole = (long) scaled;
+                double fraction = scaled - whole;
+                if (Math.abs(fraction - 0.5) > 1e-3) {
+                    long rounded = fraction > 0.5 ? whole + 1 : whole;
+                    if (Double.doubleToRawLongBits(v) < 0) putByte('-');
+                    putDigits(rounded / scale, 1);
+                    if (places > 0) {
+                        putByte('.');
+                        putDigits(rounded % scale, places);
+                    }
+                    return;
+                }
+                // BigDecimal has no negative zero, so the sign is written here as on the fast path:
+                // -0.0004999 must come out as "-0.000" like String.format, not "0.000"
+                if (Double.doubleToRawLongBits(v) < 0) putByte('-');
+                putAscii(new BigDecimal(Double.toString(Math.abs(v))).setScale(places, RoundingMode.HALF_UP).toPlainString());
+                return;
+            }
+            putAscii(String.format(Locale.ROOT, "%." + places + "f", v));
+        }
+
+        private void putAscii(String s) throws IOException {
+            for (int k = 0; k < s.length(); k++) putByte(s.charAt(k));
+        }
+
+        private void putByte(int b) throws IOException {
+            if (pos == scratch.length) flushScratch();
+            scratch[pos++] = (byte) b;
+        }
+
+        private void flushScratch() throws IOException {
+            if (pos > 0) {
+                out.write(scratch, 0, pos);
+                pos = 0;
+            }
+        }
+
+        // Appendable target for the HTML encoder: UTF-8 encodes into the scratch buffer
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int cp = Character.toCodePoint(high, c);
+                    putByte(0xF0 | (cp >> 18));
+                    putByte(0x80 | ((cp >> 12) & 0x3F));
+                    putByte(0x80 | ((cp >> 6) & 0x3F));
+                    putByte(0x80 | (cp & 0x3F));
+                    return this;
+                }
+                putByte('?');
+            }
+            if (c < 0x80) {
+                putByte(c);
+            } else if (c < 0x800) {
+                putByte(0xC0 | (c >> 6));
+                putByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                putByte('?');
+            } else {
+                putByte(0xE0 | (c >> 12));
+                putByte(0x80 | ((c >> 6) & 0x3F));
+                putByte(0x80 | (c & 0x3F));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            for (int k = start; k < end; k++) append(csq.charAt(k));
+            return this;
+        }
+    }
+}
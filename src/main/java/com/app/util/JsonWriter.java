@@ -0,0 +1,231 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON generator over a Writer. Values are written as they are
+ * given, through a small char buffer, so arrays of any length cost constant
+ * memory; commas and nesting are tracked here and misuse throws
+ * IllegalStateException. Strings escape quote, backslash and control
+ * characters, and also < > & U+2028 U+2029 as unicode escapes, so the output can
+ * be embedded in a <script> block as is. Non-finite doubles are written as
+ * null. Several top-level values may follow each other (see newline()).
+ *
+ *   json.beginObject().name("id").value(42).name("name").value(name).endObject();
+ */
+public final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    private final Writer out;
+    private final char[] buf;
+    private int pos;
+
+    private byte[] scopes = new byte[16];
+    private boolean[] nonEmpty = new boolean[16];
+    private int depth;
+    private boolean expectingValue;
+
+    public JsonWriter(Writer out) {
+        this(out, 4096);
+    }
+
+    public JsonWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buf = new char[Math.max(bufferSize, 16)];
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(OBJECT);
+        put('{');
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        pop(OBJECT);
+        put('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(ARRAY);
+        put('[');
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        pop(ARRAY);
+        put(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        if (depth == 0 || scopes[depth - 1] != OBJECT || expectingValue) {
+            throw new IllegalStateException("name() is only allowed between members of an object");
+        }
+        if (nonEmpty[depth - 1]) put(',');
+        nonEmpty[depth - 1] = true;
+        string(name);
+        put(':');
+        expectingValue = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        putLong(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            raw("null");
+        } else if (value == (long) value && Math.abs(value) < 1e15) {
+            // integral values without the ".0" or exponent Double.toString would add
+            if (value == 0 && Double.doubleToRawLongBits(value) < 0) put('-');
+            putLong((long) value);
+        } else {
+            raw(Double.toString(value));
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        raw(value ? "true" : "false");
+        return this;
+    }
+
+    // null writes a JSON null
+    public JsonWriter value(CharSequence value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            raw("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        raw("null");
+        return this;
+    }
+
+    // Line break between top-level values, e.g. for newline-delimited JSON
+    public JsonWriter newline() throws IOException {
+        if (depth != 0) throw new IllegalStateException("newline() is only allowed between top-level values");
+        put('\n');
+        return this;
+    }
+
+    // Hands buffered output to the underlying Writer without flushing it
+    public void flush() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private void beforeValue() throws IOException {
+        if (expectingValue) {
+            expectingValue = false;
+            return;
+        }
+        if (depth == 0) return;
+        if (scopes[depth - 1] == OBJECT) throw new IllegalStateException("Object members need a name() first");
+        if (nonEmpty[depth - 1]) put(',');
+        nonEmpty[depth - 1] = true;
+    }
+
+    private void push(byte scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+            nonEmpty = Arrays.copyOf(nonEmpty, depth * 2);
+        }
+        scopes[depth] = scope;
+        nonEmpty[depth] = false;
+        depth++;
+    }
+
+    private void pop(byte scope) {
+        if (depth == 0 || scopes[depth - 1] != scope || expectingValue) {
+            throw new IllegalStateException(scope == OBJECT ? "No object to end" : "No array to end");
+        }
+        depth--;
+    }
+
+    private void string(CharSequence s) throws IOException {
+        put('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': put('\\'); put('"'); break;
+                case '\\': put('\\'); put('\\'); break;
+                case '\n': put('\\'); put('n'); break;
+                case '\r': put('\\'); put('r'); break;
+                case '\t': put('\\'); put('t'); break;
+                case '\b': put('\\'); put('b'); break;
+                case '\f': put('\\'); put('f'); break;
+                case '<': case '>': case '&': case '\u2028': case '\u2029':
+                    unicodeEscape(c);
+                    break;
+                default:
+                    if (c < 0x20) {
+                        unicodeEscape(c);
+                    } else {
+                        put(c);
+                    }
+            }
+        }
+        put('"');
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value < 0) {
+            put('-');
+            if (value == Long.MIN_VALUE) {
+                raw("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        if (pos + digits > buf.length) flush();
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += digits;
+    }
+
+    private void unicodeEscape(char c) throws IOException {
+        put('\\');
+        put('u');
+        put(HEX[c >> 12]);
+        put(HEX[(c >> 8) & 0xF]);
+        put(HEX[(c >> 4) & 0xF]);
+        put(HEX[c & 0xF]);
+    }
+
+    private void raw(String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (pos == buf.length) flush();
+        buf[pos++] = c;
+    }
+}
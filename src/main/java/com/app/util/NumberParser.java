@@ -0,0 +1,160 @@
+package com.app.util;
+
+/**
+ * Number parsing that reports malformed input through a default value or a
+ * ParsedNumber flag instead of NumberFormatException, so junk parameters cost
+ * a scan rather than a stack trace. Integer syntax is that of Long.parseLong;
+ * decimals accept [+-]digits[.digits][(e|E)[+-]digits] with surrounding
+ * whitespace trimmed like Double.parseDouble (no NaN, Infinity or hex forms).
+ */
+public final class NumberParser {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private NumberParser() {}
+
+    public static int parseInt(CharSequence input, int defaultValue) {
+        ParsedNumber n = new ParsedNumber();
+        return parseInt(input, n) ? n.intValue() : defaultValue;
+    }
+
+    public static long parseLong(CharSequence input, long defaultValue) {
+        ParsedNumber n = new ParsedNumber();
+        return parseLong(input, n) ? n.longValue() : defaultValue;
+    }
+
+    public static double parseDouble(CharSequence input, double defaultValue) {
+        ParsedNumber n = new ParsedNumber();
+        return parseDouble(input, n) ? n.doubleValue() : defaultValue;
+    }
+
+    // Well-formed but out-of-range input (including overflow) saturates at min or max
+    public static int parseInt(CharSequence input, int min, int max, int defaultValue) {
+        ParsedNumber n = new ParsedNumber();
+        return parseLong(input, 0, input == null ? 0 : input.length(), min, max, true, n) ? n.intValue() : defaultValue;
+    }
+
+    public static boolean parseInt(CharSequence input, ParsedNumber out) {
+        return parseLong(input, 0, input == null ? 0 : input.length(), Integer.MIN_VALUE, Integer.MAX_VALUE, false, out);
+    }
+
+    public static boolean parseLong(CharSequence input, ParsedNumber out) {
+        return parseLong(input, 0, input == null ? 0 : input.length(), Long.MIN_VALUE, Long.MAX_VALUE, false, out);
+    }
+
+    public static boolean parseDouble(CharSequence input, ParsedNumber out) {
+        return parseDouble(input, 0, input == null ? 0 : input.length(), out);
+    }
+
+    public static boolean parseLong(CharSequence input, int start, int end, long min, long max, boolean clamp, ParsedNumber out) {
+        if (input == null || start >= end) return out.fail();
+        int i = start;
+        char first = input.charAt(i);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            if (++i == end) return out.fail();
+        }
+        // Accumulate negatively so Long.MIN_VALUE is representable
+        long acc = 0;
+        boolean overflow = false;
+        for (; i < end; i++) {
+            int d = Character.digit(input.charAt(i), 10);
+            if (d < 0) return out.fail();
+            if (overflow || acc < Long.MIN_VALUE / 10 || acc * 10 < Long.MIN_VALUE + d) {
+                overflow = true;
+            } else {
+                acc = acc * 10 - d;
+            }
+        }
+        if (!negative && acc == Long.MIN_VALUE) overflow = true;
+        if (overflow) {
+            return clamp ? out.set(negative ? min : max, true) : out.fail();
+        }
+        long value = negative ? acc : -acc;
+        if (value < min || value > max) {
+            return clamp ? out.set(value < min ? min : max, true) : out.fail();
+        }
+        return out.set(value, false);
+    }
+
+    public static boolean parseDouble(CharSequence input, int start, int end, ParsedNumber out) {
+        if (input == null) return out.fail();
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+        if (start >= end) return out.fail();
+
+        int i = start;
+        boolean negative = input.charAt(i) == '-';
+        if (negative || input.charAt(i) == '+') i++;
+
+        long mantissa = 0;
+        int significant = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (significant > 0 || c != '0') {
+                    if (significant < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (seenDot) exponent--;
+                    } else if (!seenDot) {
+                        exponent++;
+                    }
+                    significant++;
+                } else if (seenDot) {
+                    exponent--;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return out.fail();
+
+        if (i < end) {
+            char c = input.charAt(i);
+            if (c != 'e' && c != 'E') return out.fail();
+            if (++i < end && (input.charAt(i) == '+' || input.charAt(i) == '-')) {
+                if (input.charAt(i) == '-') {
+                    return parseExponent(input, i + 1, end, -1, negative, mantissa, significant, exponent, start, out);
+                }
+                i++;
+            }
+            return parseExponent(input, i, end, 1, negative, mantissa, significant, exponent, start, out);
+        }
+        return finish(input, start, end, negative, mantissa, significant, exponent, out);
+    }
+
+    private static boolean parseExponent(CharSequence input, int i, int end, int sign, boolean negative,
+                                         long mantissa, int significant, int exponent, int start, ParsedNumber out) {
+        if (i >= end) return out.fail();
+        int exp = 0;
+        for (; i < end; i++) {
+            int d = input.charAt(i) - '0';
+            if (d < 0 || d > 9) return out.fail();
+            if (exp < 100000) exp = exp * 10 + d;
+        }
+        return finish(input, start, end, negative, mantissa, significant, exponent + sign * exp, out);
+    }
+
+    private static boolean finish(CharSequence input, int start, int end, boolean negative,
+                                  long mantissa, int significant, int exponent, ParsedNumber out) {
+        if (mantissa == 0) return out.set(negative ? -0.0 : 0.0);
+        // Mantissa below 2^53 and a power of ten that is exact in a double: one
+        // correctly rounded multiply or divide gives the same bits as parseDouble
+        if (significant <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return out.set(negative ? -value : value);
+        }
+        // Grammar already validated, so this cannot throw
+        return out.set(Double.parseDouble(input.subSequence(start, end).toString()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.app.util;
+
+/**
+ * Reusable out-parameter for NumberParser: the parsed value plus whether the
+ * parse succeeded, without boxing or throwing.
+ */
+public class ParsedNumber {
+    private boolean valid;
+    private boolean clamped;
+    private long longValue;
+    private double doubleValue;
+
+    public boolean isValid() { return valid; }
+    public boolean isClamped() { return clamped; }
+    public int intValue() { return (int) longValue; }
+    public long longValue() { return longValue; }
+    public double doubleValue() { return doubleValue; }
+
+    boolean set(long value, boolean clamped) {
+        this.valid = true;
+        this.clamped = clamped;
+        this.longValue = value;
+        this.doubleValue = value;
+        return true;
+    }
+
+    boolean set(double value) {
+        this.valid = true;
+        this.clamped = false;
+        this.longValue = (long) value;
+        this.doubleValue = value;
+        return true;
+    }
+
+    boolean fail() {
+        this.valid = false;
+        this.clamped = false;
+        this.longValue = 0;
+        this.doubleValue = 0;
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.app.util;
+
+/**
+ * One-pass password strength check. Every enabled criterion is evaluated in the
+ * same scan through a 128-entry character-class table, and the result is a
+ * bitmask of the criteria met; the score is the number of bits set. The default
+ * scorer reproduces the original 0-4 scale: length >= 8, an upper-case letter,
+ * a digit and one of !@#$%^&*.
+ */
+public class PasswordScorer {
+
+    public static final int LENGTH = 1;
+    public static final int UPPER = 2;
+    public static final int DIGIT = 4;
+    public static final int SYMBOL = 8;
+    public static final int LOWER = 16;
+    public static final int NO_LONG_RUN = 32;  // no char repeated more than maxRun times in a row
+
+    public static final PasswordScorer DEFAULT = new PasswordScorer(8, LENGTH | UPPER | DIGIT | SYMBOL, 0);
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] = UPPER;
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] = LOWER;
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] = DIGIT;
+        for (char c : "!@#$%^&*".toCharArray()) CLASSES[c] = SYMBOL;
+    }
+
+    private final int minLength;
+    private final int criteria;
+    private final int maxRun;
+
+    public PasswordScorer(int minLength, int criteria, int maxRun) {
+        this.minLength = minLength;
+        this.criteria = criteria;
+        this.maxRun = maxRun;
+    }
+
+    public int score(CharSequence password) {
+        return Integer.bitCount(classify(password));
+    }
+
+    public int maxScore() {
+        return Integer.bitCount(criteria);
+    }
+
+    // Bitmask of the enabled criteria that the password meets; 0 for null
+    public int classify(CharSequence password) {
+        if (password == null) return 0;
+        int n = password.length();
+        int seen = n >= minLength ? LENGTH : 0;
+        int run = 0;
+        int longestRun = 0;
+        char previous = 0;
+        for (int i = 0; i < n; i++) {
+            char c = password.charAt(i);
+            if (c < 128) seen |= CLASSES[c];
+            run = i > 0 && c == previous ? run + 1 : 1;
+            if (run > longestRun) longestRun = run;
+            previous = c;
+        }
+        if ((criteria & NO_LONG_RUN) != 0 && longestRun <= maxRun) seen |= NO_LONG_RUN;
+        return seen & criteria;
+    }
+}
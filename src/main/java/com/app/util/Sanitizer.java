@@ -1,12 +1,11 @@
 package com.app.util;
 
-import java.util.regex.Pattern;
+import java.io.IOException;
 
 public class Sanitizer {
-    
-    private static final Pattern NUMERIC = Pattern.compile("^[0-9]+$");
-    private static final Pattern ALPHANUMERIC = Pattern.compile("^[a-zA-Z0-9]+$");
-    private static final Pattern EMAIL = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+
+    private static final int DIGIT_SCRATCH_SIZE = 256;
+    private static final ThreadLocal<char[]> DIGIT_SCRATCH = ThreadLocal.withInitial(() -> new char[DIGIT_SCRATCH_SIZE]);
     
     public static int toInt(String input) {
         return Integer.parseInt(input);
@@ -19,23 +18,58 @@ public class Sanitizer {
     public static double toDouble(String input) {
         return Double.parseDouble(input);
     }
+
+    public static int toInt(CharSequence input, int defaultValue) {
+        return NumberParser.parseInt(input, defaultValue);
+    }
+
+    public static long toLong(CharSequence input, long defaultValue) {
+        return NumberParser.parseLong(input, defaultValue);
+    }
+
+    public static double toDouble(CharSequence input, double defaultValue) {
+        return NumberParser.parseDouble(input, defaultValue);
+    }
+
+    public static int toBoundedInt(CharSequence input, int min, int max, int defaultValue) {
+        return NumberParser.parseInt(input, min, max, defaultValue);
+    }
     
     public static boolean isNumeric(String input) {
-        return input != null && NUMERIC.matcher(input).matches();
+        return Validators.isNumeric(input);
     }
     
     public static boolean isAlphanumeric(String input) {
-        return input != null && ALPHANUMERIC.matcher(input).matches();
+        return Validators.isAlphanumeric(input);
     }
     
     public static boolean isValidEmail(String input) {
-        return input != null && EMAIL.matcher(input).matches();
+        return Validators.isValidEmail(input);
     }
     
     public static String escapeHtml(String input) {
-        if (input == null) return "";
-        return input.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
-                    .replace("\"", "&quot;").replace("'", "&#x27;");
+        return Encoders.HTML.encode(input);
+    }
+
+    public static void escapeHtml(CharSequence input, StringBuilder out) {
+        if (input == null) return;
+        escapeHtml(input, 0, input.length(), out);
+    }
+
+    public static void escapeHtml(CharSequence input, int start, int end, StringBuilder out) {
+        try {
+            Encoders.HTML.encode(input, start, end, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // StringBuilder never throws
+        }
+    }
+
+    public static void escapeHtml(CharSequence input, Appendable out) throws IOException {
+        Encoders.HTML.encode(input, out);
+    }
+
+    public static void escapeHtml(CharSequence input, int start, int end, Appendable out) throws IOException {
+        Encoders.HTML.encode(input, start, end, out);
     }
     
     public static String mask(String input, int visibleChars) {
@@ -47,13 +81,19 @@ public class Sanitizer {
         return Math.min(Math.max(value, 0), max);
     }
     
+    // The result string is the only allocation: all-digit input comes back as is, a single
+    // run of digits is a substring, and scattered digits are gathered in a per-thread buffer
     public static String extractNumeric(String input) {
         if (input == null) return "0";
-        StringBuilder sb = new StringBuilder();
-        for (char c : input.toCharArray()) {
-            if (Character.isDigit(c)) sb.append(c);
-        }
-        return sb.length() > 0 ? sb.toString() : "0";
+        int len = input.length();
+        int n = TextKernel.countDigits(input, 0, len);
+        if (n == 0) return "0";
+        if (n == len) return input;
+        int first = TextKernel.indexOfDigit(input, 0);
+        if (TextKernel.countDigits(input, first, first + n) == n) return input.substring(first, first + n);
+        char[] digits = n <= DIGIT_SCRATCH_SIZE ? DIGIT_SCRATCH.get() : new char[n];
+        TextKernel.extractDigits(input, digits, 0);
+        return new String(digits, 0, n);
     }
-}
 
+}
@@ -0,0 +1,127 @@
+package com.app.util;
+
+import java.io.IOException;
+
+/**
+ * Encoder driven by a 128-entry replacement table for ASCII (null entry means
+ * the char is copied as-is) and a fixed policy for everything above 0x7F.
+ */
+class TableEncoder implements Encoder {
+
+    enum NonAscii { PASS, DROP, REFERENCE_UNLESS_LETTER_OR_DIGIT, PERCENT_UTF8 }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String[] ascii;
+    private final NonAscii nonAscii;
+
+    TableEncoder(String[] ascii, NonAscii nonAscii) {
+        this.ascii = ascii;
+        this.nonAscii = nonAscii;
+    }
+
+    @Override
+    public String encode(CharSequence input) {
+        if (input == null) return "";
+        int n = input.length();
+        int first = 0;
+        while (first < n && !needsEncoding(input.charAt(first))) first++;
+        if (first == n) return input.toString();
+        StringBuilder sb = new StringBuilder(n + 16);
+        sb.append(input, 0, first);
+        try {
+            encode(input, first, n, sb);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void encode(CharSequence input, Appendable out) throws IOException {
+        if (input == null) return;
+        encode(input, 0, input.length(), out);
+    }
+
+    @Override
+    public void encode(CharSequence input, int start, int end, Appendable out) throws IOException {
+        int run = start;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (!needsEncoding(c)) continue;
+            TextKernel.appendRange(input, run, i, out);
+            if (c < 128) {
+                out.append(ascii[c]);
+            } else {
+                i = encodeNonAscii(input, i, end, out);
+            }
+            run = i + 1;
+        }
+        TextKernel.appendRange(input, run, end, out);
+    }
+
+    private boolean needsEncoding(char c) {
+        if (c < 128) return ascii[c] != null;
+        switch (nonAscii) {
+            case PASS: return false;
+            case REFERENCE_UNLESS_LETTER_OR_DIGIT: return !Character.isLetterOrDigit(c);
+            default: return true;
+        }
+    }
+
+    // Returns the index of the last char consumed
+    private int encodeNonAscii(CharSequence input, int i, int end, Appendable out) throws IOException {
+        char c = input.charAt(i);
+        switch (nonAscii) {
+            case DROP:
+                return i;
+            case REFERENCE_UNLESS_LETTER_OR_DIGIT:
+                out.append('&').append('#');
+                appendDecimal(c, out);
+                out.append(';');
+                return i;
+            case PERCENT_UTF8:
+                int cp = c;
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(input.charAt(i + 1))) {
+                    cp = Character.toCodePoint(c, input.charAt(++i));
+                } else if (Character.isSurrogate(c)) {
+                    cp = '?';  // same replacement the UTF-8 encoder uses for unpaired surrogates
+                }
+                appendUtf8Percent(cp, out);
+                return i;
+            default:
+                out.append(c);
+                return i;
+        }
+    }
+
+    private static void appendUtf8Percent(int cp, Appendable out) throws IOException {
+        if (cp < 0x80) {
+            appendPercent(cp, out);
+        } else if (cp < 0x800) {
+            appendPercent(0xC0 | (cp >> 6), out);
+            appendPercent(0x80 | (cp & 0x3F), out);
+        } else if (cp < 0x10000) {
+            appendPercent(0xE0 | (cp >> 12), out);
+            appendPercent(0x80 | ((cp >> 6) & 0x3F), out);
+            appendPercent(0x80 | (cp & 0x3F), out);
+        } else {
+            appendPercent(0xF0 | (cp >> 18), out);
+            appendPercent(0x80 | ((cp >> 12) & 0x3F), out);
+            appendPercent(0x80 | ((cp >> 6) & 0x3F), out);
+            appendPercent(0x80 | (cp & 0x3F), out);
+        }
+    }
+
+    private static void appendPercent(int b, Appendable out) throws IOException {
+        out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
+    private static void appendDecimal(int value, Appendable out) throws IOException {
+        int divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (value / divisor) % 10));
+        }
+    }
+}
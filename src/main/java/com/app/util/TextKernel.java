@@ -0,0 +1,115 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Small text loops that scan a CharSequence once and write into a caller's
+ * buffer or Appendable, so hot paths need neither toCharArray() copies nor
+ * per-call StringBuilders. Digits are Unicode decimal digits as defined by
+ * Character.isDigit.
+ */
+public final class TextKernel {
+
+    private TextKernel() {}
+
+    public static int digitSum(CharSequence input) {
+        return input == null ? 0 : digitSum(input, 0, input.length());
+    }
+
+    public static int digitSum(CharSequence input, int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            int d = Character.digit(input.charAt(i), 10);
+            if (d > 0) sum += d;
+        }
+        return sum;
+    }
+
+    public static int countDigits(CharSequence input, int start, int end) {
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            if (Character.isDigit(input.charAt(i))) n++;
+        }
+        return n;
+    }
+
+    // -1 when there is no digit at or after from
+    public static int indexOfDigit(CharSequence input, int from) {
+        for (int i = from, len = input.length(); i < len; i++) {
+            if (Character.isDigit(input.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    // Copies the digits of input into dst starting at off; returns how many were written
+    public static int extractDigits(CharSequence input, char[] dst, int off) {
+        if (input == null) return 0;
+        int n = off;
+        for (int i = 0, len = input.length(); i < len; i++) {
+            char c = input.charAt(i);
+            if (Character.isDigit(c)) dst[n++] = c;
+        }
+        return n - off;
+    }
+
+    // First char of every non-empty separator-delimited part, case unchanged; returns how many were written.
+    // A buffer of (input.length() + 1) / 2 chars always suffices. Upper-case the result as a whole
+    // with String.toUpperCase: per-char Character.toUpperCase misses expansions such as \u00df to "SS".
+    public static int initials(CharSequence input, char separator, char[] dst, int off) {
+        if (input == null) return 0;
+        int n = off;
+        boolean atStart = true;
+        for (int i = 0, len = input.length(); i < len; i++) {
+            char c = input.charAt(i);
+            if (c == separator) {
+                atStart = true;
+            } else if (atStart) {
+                dst[n++] = c;
+                atStart = false;
+            }
+        }
+        return n - off;
+    }
+
+    // Letters, digits and any char in extras pass; everything else is dropped
+    public static int filterLettersOrDigits(CharSequence input, String extras, char[] dst, int off) {
+        if (input == null) return 0;
+        int n = off;
+        for (int i = 0, len = input.length(); i < len; i++) {
+            char c = input.charAt(i);
+            if (Character.isLetterOrDigit(c) || extras.indexOf(c) >= 0) dst[n++] = c;
+        }
+        return n - off;
+    }
+
+    public static void appendLettersOrDigits(CharSequence input, String extras, Appendable out) throws IOException {
+        if (input == null) return;
+        int run = 0;
+        int len = input.length();
+        for (int i = 0; i < len; i++) {
+            char c = input.charAt(i);
+            if (!Character.isLetterOrDigit(c) && extras.indexOf(c) < 0) {
+                appendRange(input, run, i, out);
+                run = i + 1;
+            }
+        }
+        appendRange(input, run, len, out);
+    }
+
+    // Writer.append(CharSequence, int, int) goes through subSequence(); write the range directly instead
+    static void appendRange(CharSequence input, int start, int end, Appendable out) throws IOException {
+        if (start >= end) return;
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(input, start, end);
+        } else if (!(out instanceof Writer)) {
+            out.append(input, start, end);
+        } else if (input instanceof String) {
+            ((Writer) out).write((String) input, start, end - start);
+        } else {
+            for (int i = start; i < end; i++) {
+                out.append(input.charAt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.app.util;
+
+/**
+ * Allocation-free equivalents of the character-class regexes used for input
+ * validation. Each check is a single scan over the CharSequence driven by a
+ * 128-entry class table; the email check is a hand-compiled DFA.
+ */
+public final class Validators {
+
+    private static final int DIGIT = 1;
+    private static final int LETTER = 2;
+    private static final int UNDERSCORE = 4;
+    private static final int HYPHEN = 8;
+    private static final int SPACE = 16;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] = DIGIT;
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] = LETTER;
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] = LETTER;
+        CLASSES['_'] = UNDERSCORE;
+        CLASSES['-'] = HYPHEN;
+        for (char c : new char[] { ' ', '\t', '\n', '\u000B', '\f', '\r' }) CLASSES[c] = SPACE;
+    }
+
+    private Validators() {}
+
+    // ^[0-9]+$
+    public static boolean isNumeric(CharSequence input) {
+        return allOf(input, DIGIT);
+    }
+
+    // ^[a-zA-Z0-9]+$
+    public static boolean isAlphanumeric(CharSequence input) {
+        return allOf(input, DIGIT | LETTER);
+    }
+
+    // ^[a-zA-Z0-9_-]+$
+    public static boolean isSafeId(CharSequence input) {
+        return allOf(input, DIGIT | LETTER | UNDERSCORE | HYPHEN);
+    }
+
+    // ^[a-zA-Z0-9_\s-]+$
+    public static boolean isSafeText(CharSequence input) {
+        return allOf(input, DIGIT | LETTER | UNDERSCORE | HYPHEN | SPACE);
+    }
+
+    // ^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}$
+    public static boolean isValidEmail(CharSequence input) {
+        if (input == null) return false;
+        int state = E_LOCAL_START;
+        for (int i = 0, n = input.length(); i < n && state != E_REJECT; i++) {
+            state = EMAIL_DFA[state][emailClass(input.charAt(i))];
+        }
+        return state == E_TLD_OK;
+    }
+
+    private static boolean allOf(CharSequence input, int mask) {
+        if (input == null || input.length() == 0) return false;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char c = input.charAt(i);
+            if (c >= 128 || (CLASSES[c] & mask) == 0) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Email DFA. The domain part [a-zA-Z0-9.-]+\.[a-zA-Z]{2,} matches exactly when the
+     * text after the last dot is two or more letters and at least one domain char
+     * precedes that dot, so the DFA only has to track what follows the latest dot.
+     */
+    private static final int E_LOCAL_START = 0;   // nothing read yet
+    private static final int E_LOCAL = 1;         // one or more local-part chars
+    private static final int E_DOMAIN_START = 2;  // just read '@'
+    private static final int E_DOMAIN = 3;        // domain chars, no usable dot yet
+    private static final int E_DOT = 4;           // last char was a dot with a non-empty prefix
+    private static final int E_TLD_ONE = 5;       // one letter after that dot
+    private static final int E_TLD_OK = 6;        // two or more letters after that dot (accepting)
+    private static final int E_REJECT = 7;
+
+    private static final int C_LETTER = 0;
+    private static final int C_DIGIT = 1;
+    private static final int C_DOT = 2;
+    private static final int C_HYPHEN = 3;
+    private static final int C_LOCAL_ONLY = 4;    // _ % +
+    private static final int C_AT = 5;
+    private static final int C_OTHER = 6;
+
+    private static final int[][] EMAIL_DFA = {
+        //                LETTER      DIGIT       DOT         HYPHEN      LOCAL_ONLY  AT              OTHER
+        /* LOCAL_START */ { E_LOCAL,    E_LOCAL,    E_LOCAL,    E_LOCAL,    E_LOCAL,    E_REJECT,       E_REJECT },
+        /* LOCAL       */ { E_LOCAL,    E_LOCAL,    E_LOCAL,    E_LOCAL,    E_LOCAL,    E_DOMAIN_START, E_REJECT },
+        /* DOMAIN_START*/ { E_DOMAIN,   E_DOMAIN,   E_DOMAIN,   E_DOMAIN,   E_REJECT,   E_REJECT,       E_REJECT },
+        /* DOMAIN      */ { E_DOMAIN,   E_DOMAIN,   E_DOT,      E_DOMAIN,   E_REJECT,   E_REJECT,       E_REJECT },
+        /* DOT         */ { E_TLD_ONE,  E_DOMAIN,   E_DOT,      E_DOMAIN,   E_REJECT,   E_REJECT,       E_REJECT },
+        /* TLD_ONE     */ { E_TLD_OK,   E_DOMAIN,   E_DOT,      E_DOMAIN,   E_REJECT,   E_REJECT,       E_REJECT },
+        /* TLD_OK      */ { E_TLD_OK,   E_DOMAIN,   E_DOT,      E_DOMAIN,   E_REJECT,   E_REJECT,       E_REJECT },
+        /* REJECT      */ { E_REJECT,   E_REJECT,   E_REJECT,   E_REJECT,   E_REJECT,   E_REJECT,       E_REJECT },
+    };
+
+    private static int emailClass(char c) {
+        if (c >= 128) return C_OTHER;
+        switch (CLASSES[c]) {
+            case LETTER: return C_LETTER;
+            case DIGIT: return C_DIGIT;
+            case HYPHEN: return C_HYPHEN;
+            case UNDERSCORE: return C_LOCAL_ONLY;
+            default:
+                if (c == '.') return C_DOT;
+                if (c == '%' || c == '+') return C_LOCAL_ONLY;
+                if (c == '@') return C_AT;
+                return C_OTHER;
+        }
+    }
+}
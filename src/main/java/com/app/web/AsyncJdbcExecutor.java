@@ -0,0 +1,774 @@
+package com.app.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Runs JDBC-bound handlers on a dedicated executor instead of the container
+ * thread. The request is put into async mode, the handler writes into a
+ * captured response (status, headers and body held in memory), and the result
+ * is then sent through a WriteListener so no thread waits on a slow client
+ * either. A request that is not finished within the timeout gets a 503, as
+ * does one the executor has no room for. When the request does not support
+ * async processing the handler simply runs inline.
+ *
+ * With dispatch() the whole response body is held in memory until the handler
+ * returns, and only then written out. That is what lets a timeout or failure
+ * still turn into a clean 503/500 and the body go out with an exact
+ * Content-Length, but memory per request grows with the response.
+ *
+ * Large or open-ended output goes through stream() instead: the handler still
+ * runs on the executor, but what it writes is cut into WRITE_CHUNK byte chunks
+ * and sent as it comes. At most MAX_CHUNKS of them wait for the client; a
+ * handler that gets further ahead blocks until the WriteListener has sent one.
+ * Streamed requests have no async timeout, since a long export is legitimate,
+ * and a failure after the first chunk has gone out can only end the response
+ * early. A client that goes away fails the handler's next write.
+ */
+public class AsyncJdbcExecutor {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    private static final int WRITE_CHUNK = 8192;
+    private static final int MAX_CHUNKS = 4;
+
+    private static final int RUNNING = 0;
+    private static final int WRITING = 1;
+    private static final int DONE = 2;
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public AsyncJdbcExecutor(ExecutorService executor) {
+        this(executor, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public AsyncJdbcExecutor(ExecutorService executor, long timeoutMillis) {
+        if (timeoutMillis <= 0) throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void dispatch(HttpServletRequest req, HttpServletResponse resp, RequestHandler handler) throws IOException, ServletException {
+        if (!req.isAsyncSupported()) {
+            runInline(req, resp, handler);
+            return;
+        }
+        AsyncContext context = req.startAsync(req, resp);
+        context.setTimeout(timeoutMillis);
+        Exchange exchange = new Exchange(context, resp);
+        context.addListener(exchange);
+        try {
+            exchange.task = executor.submit(() -> exchange.run(req, handler));
+        } catch (RejectedExecutionException e) {
+            rejections.incrementAndGet();
+            exchange.abort(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // Runs the handler on the executor and sends its output while it runs
+    public void stream(HttpServletRequest req, HttpServletResponse resp, RequestHandler handler) throws IOException, ServletException {
+        if (!req.isAsyncSupported()) {
+            runInline(req, resp, handler);
+            return;
+        }
+        AsyncContext context = req.startAsync(req, resp);
+        context.setTimeout(0);
+        Stream stream = new Stream(context, resp);
+        context.addListener(stream);
+        try {
+            stream.task = executor.submit(() -> stream.run(req, handler));
+        } catch (RejectedExecutionException e) {
+            rejections.incrementAndGet();
+            stream.fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getRejectedCount() {
+        return rejections.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    private static void runInline(HttpServletRequest req, HttpServletResponse resp, RequestHandler handler) throws IOException, ServletException {
+        try {
+            handler.handle(req, resp);
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    // One async request: the state moves RUNNING -> WRITING -> DONE, or straight
+    // to DONE on timeout or failure; only the thread that wins a transition touches
+    // the real response. Once WRITING, setting up the write, the write loop and
+    // completion hold the exchange's lock, so a timeout that fires while the body
+    // is going out completes the request between two writes, never during one.
+    private final class Exchange implements AsyncListener, WriteListener {
+        private final AsyncContext context;
+        private final HttpServletResponse response;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private volatile Future<?> task;
+        private ServletOutputStream out;
+        private byte[] body;
+        private int bodyLength;
+        private int written;
+
+        Exchange(AsyncContext context, HttpServletResponse response) {
+            this.context = context;
+            this.response = response;
+        }
+
+        void run(HttpServletRequest req, RequestHandler handler) {
+            CapturedResponse captured = new CapturedResponse(response);
+            try {
+                handler.handle(req, captured);
+                captured.flushWriter();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                abort(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+            synchronized (this) {
+                if (!state.compareAndSet(RUNNING, WRITING)) return;
+                try {
+                    captured.replay();
+                    if (captured.errorSent) {
+                        finish();
+                        return;
+                    }
+                    body = captured.body.buffer();
+                    bodyLength = captured.body.size();
+                    if (!response.isCommitted()) response.setContentLength(bodyLength);
+                    out = response.getOutputStream();
+                    out.setWriteListener(this);
+                } catch (IOException | RuntimeException e) {
+                    failures.incrementAndGet();
+                    finish();
+                }
+            }
+        }
+
+        // False when the handler's result, or another abort, got there first
+        boolean abort(int status) {
+            if (!state.compareAndSet(RUNNING, DONE)) return false;
+            try {
+                if (!response.isCommitted()) response.sendError(status);
+            } catch (IOException | IllegalStateException e) {
+                // nothing more can be sent
+            }
+            context.complete();
+            return true;
+        }
+
+        // False when the exchange was already done
+        private synchronized boolean finish() {
+            if (state.getAndSet(DONE) == DONE) return false;
+            context.complete();
+            return true;
+        }
+
+        @Override
+        public synchronized void onWritePossible() throws IOException {
+            while (state.get() == WRITING && out.isReady()) {
+                if (written == bodyLength) {
+                    out.close();
+                    finish();
+                    return;
+                }
+                int n = Math.min(WRITE_CHUNK, bodyLength - written);
+                out.write(body, written, n);
+                written += n;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            finish();
+        }
+
+        // While RUNNING the handler is cancelled and a 503 sent. While WRITING the
+        // status and Content-Length are out already, so the request is completed
+        // short of its length, which the client sees as a failed response.
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (abort(HttpServletResponse.SC_SERVICE_UNAVAILABLE)) {
+                timeouts.incrementAndGet();
+                Future<?> running = task;
+                if (running != null) running.cancel(true);
+            } else if (finish()) {
+                timeouts.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            Future<?> running = task;
+            if (running != null) running.cancel(true);
+            finish();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    // One streamed request. The handler thread hands chunks to offer(), the
+    // container takes them in onWritePossible(); the queue, every write to the
+    // real output stream and completion hold the stream's lock. The output
+    // stream is only opened with the first chunk, so a handler that fails or
+    // sends an error before writing much still gets a proper error response.
+    private final class Stream implements AsyncListener, WriteListener {
+        private final AsyncContext context;
+        private final HttpServletResponse response;
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<>(MAX_CHUNKS);
+        private volatile Future<?> task;
+        private ServletOutputStream out;
+        private boolean handlerDone;
+        private boolean sent;
+        private boolean done;
+
+        Stream(AsyncContext context, HttpServletResponse response) {
+            this.context = context;
+            this.response = response;
+        }
+
+        void run(HttpServletRequest req, RequestHandler handler) {
+            StreamingResponse streaming = new StreamingResponse(response, this);
+            try {
+                handler.handle(req, streaming);
+                streaming.close();
+                end();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+
+        synchronized boolean isOpen() {
+            return out != null;
+        }
+
+        // Blocks while MAX_CHUNKS chunks are waiting for the client
+        synchronized void offer(byte[] chunk) throws IOException {
+            while (!done && chunks.size() == MAX_CHUNKS) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Streamed response cancelled");
+                }
+            }
+            if (done) throw new IOException("Streamed response already completed");
+            chunks.add(chunk);
+            if (out == null) {
+                out = response.getOutputStream();
+                // the container calls onWritePossible once it can take the first chunk
+                out.setWriteListener(this);
+            } else {
+                drain();
+            }
+        }
+
+        private synchronized void end() throws IOException {
+            handlerDone = true;
+            if (out == null) complete();
+            else drain();
+        }
+
+        synchronized void fail(int status) {
+            if (done) return;
+            chunks.clear();
+            if (!sent) {
+                try {
+                    if (!response.isCommitted()) response.sendError(status);
+                } catch (IOException | IllegalStateException e) {
+                    // nothing more can be sent
+                }
+            }
+            complete();
+        }
+
+        private void complete() {
+            done = true;
+            notifyAll();
+            context.complete();
+        }
+
+        private void drain() throws IOException {
+            while (!done && out.isReady()) {
+                byte[] chunk = chunks.poll();
+                if (chunk == null) {
+                    if (handlerDone) complete();
+                    return;
+                }
+                out.write(chunk);
+                sent = true;
+                notifyAll();
+            }
+        }
+
+        private void cancel() {
+            Future<?> running = task;
+            if (running != null) running.cancel(true);
+        }
+
+        @Override
+        public synchronized void onWritePossible() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            cancel();
+            synchronized (this) {
+                if (!done) complete();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            cancel();
+            synchronized (this) {
+                if (done) return;
+                timeouts.incrementAndGet();
+                fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            onError(event.getThrowable());
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private static final class Body extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    // Keeps everything the handler sets in memory; the real response is only
+    // touched in replay(), once the exchange is known not to have timed out.
+    private static final class CapturedResponse extends HttpServletResponseWrapper {
+        private final List<Consumer<HttpServletResponse>> operations = new ArrayList<>();
+        private final Set<String> headerNames = new HashSet<>();
+        private final Body body = new Body();
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                throw new IllegalStateException("Captured output is written by AsyncJdbcExecutor");
+            }
+        };
+        private PrintWriter writer;
+        private String characterEncoding;
+        private String contentType;
+        private int status = SC_OK;
+        private boolean errorSent;
+
+        CapturedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void flushWriter() {
+            if (writer != null) writer.flush();
+        }
+
+        void replay() {
+            HttpServletResponse target = (HttpServletResponse) getResponse();
+            for (Consumer<HttpServletResponse> op : operations) op.accept(target);
+        }
+
+        private void record(Consumer<HttpServletResponse> op) {
+            operations.add(op);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            if (characterEncoding != null) return characterEncoding;
+            return super.getCharacterEncoding() != null ? super.getCharacterEncoding() : StandardCharsets.ISO_8859_1.name();
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            if (writer != null) return;
+            characterEncoding = charset;
+            record(r -> r.setCharacterEncoding(charset));
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType != null ? contentType : super.getContentType();
+        }
+
+        @Override
+        public void setContentType(String type) {
+            contentType = type;
+            int i = type == null ? -1 : type.toLowerCase(Locale.ROOT).indexOf("charset=");
+            if (i >= 0 && writer == null) characterEncoding = type.substring(i + 8).trim();
+            record(r -> r.setContentType(type));
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+            record(r -> r.setLocale(locale));
+        }
+
+        // The length is taken from the captured body when it is sent
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+        }
+
+        @Override
+        public void flushBuffer() {
+            flushWriter();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (writer != null) writer.flush();
+            body.reset();
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            operations.clear();
+            headerNames.clear();
+            status = SC_OK;
+            errorSent = false;
+            contentType = null;
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            record(r -> r.addCookie(cookie));
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return headerNames.contains(name.toLowerCase(Locale.ROOT)) || super.containsHeader(name);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) return;
+            headerNames.add(name.toLowerCase(Locale.ROOT));
+            record(r -> r.setHeader(name, value));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) return;
+            headerNames.add(name.toLowerCase(Locale.ROOT));
+            record(r -> r.addHeader(name, value));
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            headerNames.add(name.toLowerCase(Locale.ROOT));
+            record(r -> r.setDateHeader(name, date));
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            headerNames.add(name.toLowerCase(Locale.ROOT));
+            record(r -> r.addDateHeader(name, date));
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            status = sc;
+            record(r -> r.setStatus(sc));
+        }
+
+        @Override
+        public void sendError(int sc) {
+            sendError(sc, null);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) {
+            status = sc;
+            errorSent = true;
+            record(r -> {
+                try {
+                    if (msg == null) r.sendError(sc);
+                    else r.sendError(sc, msg);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+            status = SC_FOUND;
+            errorSent = true;
+            record(r -> {
+                try {
+                    r.sendRedirect(location);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+    }
+
+    // The handler's view of a streamed response: headers go straight to the real
+    // response, the body is cut into chunks for Stream.offer(). Once the first
+    // chunk is handed over the response counts as committed.
+    private static final class StreamingResponse extends HttpServletResponseWrapper {
+        private final Stream stream;
+        private final ServletOutputStream output = new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (errorSent) return;
+                makeRoom();
+                chunk[count++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (errorSent) return;
+                while (len > 0) {
+                    makeRoom();
+                    int n = Math.min(len, chunk.length - count);
+                    System.arraycopy(b, off, chunk, count, n);
+                    count += n;
+                    off += n;
+                    len -= n;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (count > 0 && !discarding) handOver();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                throw new IllegalStateException("Streamed output is written by AsyncJdbcExecutor");
+            }
+        };
+        private byte[] chunk = new byte[WRITE_CHUNK];
+        private int count;
+        private PrintWriter writer;
+        private boolean errorSent;
+        private boolean discarding;
+
+        StreamingResponse(HttpServletResponse response, Stream stream) {
+            super(response);
+            this.stream = stream;
+        }
+
+        void close() throws IOException {
+            if (writer != null) writer.flush();
+            output.flush();
+        }
+
+        private void makeRoom() throws IOException {
+            if (count < chunk.length) return;
+            if (discarding) count = 0;
+            else handOver();
+        }
+
+        private void handOver() throws IOException {
+            if (count == chunk.length) {
+                stream.offer(chunk);
+                chunk = new byte[WRITE_CHUNK];
+            } else {
+                stream.offer(Arrays.copyOf(chunk, count));
+            }
+            count = 0;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            return output;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(output, Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            if (writer == null) super.setCharacterEncoding(charset);
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+        }
+
+        @Override
+        public int getBufferSize() {
+            return WRITE_CHUNK;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            close();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return stream.isOpen() || super.isCommitted();
+        }
+
+        // Chars still in the writer's encoder are pushed through and dropped with the rest
+        @Override
+        public void resetBuffer() {
+            if (isCommitted()) throw new IllegalStateException("Response already committed");
+            if (writer != null) {
+                discarding = true;
+                writer.flush();
+                discarding = false;
+            }
+            count = 0;
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            super.reset();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            sendError(sc, null);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            resetBuffer();
+            errorSent = true;
+            if (msg == null) super.sendError(sc);
+            else super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            resetBuffer();
+            errorSent = true;
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.app.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response writer that collects output in a pooled char buffer and encodes it
+ * to the response OutputStream in the response's character encoding only when
+ * the buffer reaches the flush threshold or the body is finished. If everything
+ * fits before finish(), Content-Length is set and the body goes out in a single
+ * write. Use it instead of resp.getWriter(), in try-with-resources, calling
+ * finish() as the last statement of the block:
+ *
+ *   try (BufferedResponseWriter out = new BufferedResponseWriter(resp)) {
+ *       ...
+ *       out.finish();
+ *   }
+ *
+ * close() without finish() means rendering failed: whatever is still buffered
+ * is discarded, so a partial body is never sent with a matching Content-Length,
+ * and the exception propagates untouched. close() returns the buffers to the
+ * pool but leaves the response stream open. If the response's Writer is
+ * already in use, output goes through it instead, without Content-Length.
+ */
+public class BufferedResponseWriter extends Writer {
+
+    public static final int DEFAULT_FLUSH_THRESHOLD = 8192;
+
+    private static final int POOL_SIZE = 64;
+    private static final ArrayBlockingQueue<Buffers> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final HttpServletResponse response;
+    private final Buffers buffers;
+    private final char[] chars;
+    private final CharsetEncoder encoder;
+    private OutputStream stream;
+    private Writer writer;
+    private int pos;
+    private boolean committed;
+    private boolean finished;
+    private boolean closed;
+
+    public BufferedResponseWriter(HttpServletResponse response) {
+        this(response, DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    public BufferedResponseWriter(HttpServletResponse response, int flushThreshold) {
+        this.response = response;
+        Buffers pooled = flushThreshold == DEFAULT_FLUSH_THRESHOLD ? POOL.poll() : null;
+        this.buffers = pooled != null ? pooled : new Buffers(Math.max(flushThreshold, 64));
+        this.chars = buffers.chars;
+        this.encoder = buffers.encoderFor(Charset.forName(response.getCharacterEncoding()));
+    }
+
+    public BufferedResponseWriter print(long value) throws IOException {
+        ensureOpen();
+        if (pos + 20 > chars.length) drain(false);
+        if (value < 0) {
+            chars[pos++] = '-';
+            if (value == Long.MIN_VALUE) {
+                write("9223372036854775808");
+                return this;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += digits;
+        return this;
+    }
+
+    public BufferedResponseWriter print(int value) throws IOException {
+        return print((long) value);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (pos == chars.length) drain(false);
+        chars[pos++] = (char) c;
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (pos == chars.length) drain(false);
+            int n = Math.min(len, chars.length - pos);
+            str.getChars(off, off + n, chars, pos);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (pos == chars.length) drain(false);
+            int n = Math.min(len, chars.length - pos);
+            System.arraycopy(cbuf, off, chars, pos, n);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    // Pushes buffered output to the client now, which gives up the Content-Length
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain(false);
+        if (writer != null) {
+            writer.flush();
+        } else {
+            stream.flush();
+        }
+    }
+
+    // Marks the body complete and sends what is still buffered
+    public void finish() throws IOException {
+        ensureOpen();
+        finished = true;
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (finished) {
+                drain(true);
+            } else {
+                discard();
+            }
+        } finally {
+            if (chars.length == DEFAULT_FLUSH_THRESHOLD) POOL.offer(buffers);
+        }
+    }
+
+    // The buffers belong to the pool again once closed
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Writer closed");
+    }
+
+    // Encodes the buffered chars; an unpaired trailing high surrogate stays buffered until its partner arrives
+    private void drain(boolean last) throws IOException {
+        if (stream == null && writer == null) open();
+        if (writer != null) {
+            writer.write(chars, 0, pos);
+            pos = 0;
+            committed = true;
+            return;
+        }
+        ByteBuffer bytes = buffers.bytes;
+        CharBuffer in = CharBuffer.wrap(chars, 0, pos);
+        while (true) {
+            CoderResult result = encoder.encode(in, bytes, last);
+            if (result.isOverflow()) {
+                writeBytes(false);
+            } else {
+                break;
+            }
+        }
+        if (last) {
+            while (encoder.flush(bytes).isOverflow()) writeBytes(false);
+            if (!committed && !response.isCommitted()) response.setContentLength(bytes.position());
+            writeBytes(true);
+            encoder.reset();
+            pos = 0;
+            return;
+        }
+        if (bytes.position() > 0) writeBytes(false);
+        int leftover = in.remaining();
+        System.arraycopy(chars, pos - leftover, chars, 0, leftover);
+        pos = leftover;
+    }
+
+    // getOutputStream() throws once getWriter() has been called on the response
+    private void open() throws IOException {
+        try {
+            stream = response.getOutputStream();
+        } catch (IllegalStateException e) {
+            writer = response.getWriter();
+        }
+    }
+
+    // Nothing reaches the response; output already flushed stays sent
+    private void discard() {
+        pos = 0;
+        encoder.reset();
+        buffers.bytes.clear();
+    }
+
+    private void writeBytes(boolean last) throws IOException {
+        ByteBuffer bytes = buffers.bytes;
+        if (bytes.position() > 0 || last) {
+            stream.write(bytes.array(), 0, bytes.position());
+            committed = true;
+        }
+        bytes.clear();
+    }
+
+    private static final class Buffers {
+        final char[] chars;
+        final ByteBuffer bytes;
+        private Charset charset;
+        private CharsetEncoder encoder;
+
+        Buffers(int size) {
+            this.chars = new char[size];
+            this.bytes = ByteBuffer.allocate(size * 3);  // a whole buffer of BMP chars in UTF-8
+        }
+
+        CharsetEncoder encoderFor(Charset cs) {
+            if (!cs.equals(charset)) {
+                charset = cs;
+                encoder = cs.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            encoder.reset();
+            bytes.clear();
+            return encoder;
+        }
+    }
+}
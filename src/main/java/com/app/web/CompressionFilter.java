@@ -0,0 +1,533 @@
+package com.app.web;
+
+import com.app.util.NumberParser;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Compresses response bodies with gzip or deflate when the client accepts it.
+ * Output is held back until it passes minSize bytes; smaller responses go out
+ * untouched with their Content-Length, larger ones are deflated as they are
+ * written using a pooled Deflater. Bytes in, bytes out and deflate CPU time are
+ * recorded per endpoint (servlet path plus path info).
+ *
+ * Init params: level (0-9, default 6), minSize (bytes, default 1024),
+ * poolSize (pooled deflaters per format, default 32).
+ */
+public class CompressionFilter implements Filter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIMING = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private int level = 6;
+    private int minSize = 1024;
+    private ArrayBlockingQueue<Deflater> gzipPool;
+    private ArrayBlockingQueue<Deflater> deflatePool;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public CompressionFilter() {
+        this(6, 1024, 32);
+    }
+
+    public CompressionFilter(int level, int minSize, int poolSize) {
+        configure(level, minSize, poolSize);
+    }
+
+    @Override
+    public void init(FilterConfig config) {
+        configure(intParam(config, "level", level), intParam(config, "minSize", minSize), intParam(config, "poolSize", 32));
+    }
+
+    @Override
+    public void destroy() {
+        drain(gzipPool);
+        drain(deflatePool);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse resp = (HttpServletResponse) response;
+        resp.addHeader("Vary", "Accept-Encoding");
+        String encoding = negotiate(req.getHeader("Accept-Encoding"));
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse wrapper = new CompressingResponse(resp, encoding, statsFor(req));
+        boolean async = false;
+        try {
+            chain.doFilter(request, wrapper);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                finishOnComplete(request.getAsyncContext(), wrapper);
+            } else {
+                wrapper.finish();
+            }
+        }
+    }
+
+    public Map<String, EndpointStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    // The async work should close the response stream itself before complete();
+    // this only catches bodies that were left open
+    private static void finishOnComplete(AsyncContext context, CompressingResponse wrapper) {
+        context.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                finishQuietly();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                finishQuietly();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+
+            private void finishQuietly() {
+                try {
+                    wrapper.finish();
+                } catch (IOException | IllegalStateException e) {
+                    // the response is already gone
+                }
+            }
+        });
+    }
+
+    // gzip preferred over deflate at equal quality; null when neither is acceptable
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim();
+                if (p.startsWith("q=") || p.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(p.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) gzip = q;
+            else if (coding.equals(DEFLATE)) deflate = q;
+            else if (coding.equals("*")) any = q;
+        }
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip <= 0 && deflate <= 0) return null;
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    private void configure(int level, int minSize, int poolSize) {
+        if (level < 0 || level > 9) throw new IllegalArgumentException("level must be 0-9: " + level);
+        this.level = level;
+        this.minSize = Math.max(minSize, 0);
+        drain(gzipPool);
+        drain(deflatePool);
+        this.gzipPool = new ArrayBlockingQueue<>(Math.max(poolSize, 1));
+        this.deflatePool = new ArrayBlockingQueue<>(Math.max(poolSize, 1));
+    }
+
+    private EndpointStats statsFor(HttpServletRequest req) {
+        String path = req.getServletPath();
+        if (req.getPathInfo() != null) path += req.getPathInfo();
+        return stats.computeIfAbsent(path, p -> new EndpointStats());
+    }
+
+    private Deflater borrow(String encoding) {
+        boolean gzip = encoding.equals(GZIP);
+        Deflater d = (gzip ? gzipPool : deflatePool).poll();
+        return d != null ? d : new Deflater(level, gzip);
+    }
+
+    private void release(String encoding, Deflater d) {
+        d.reset();
+        if (!(encoding.equals(GZIP) ? gzipPool : deflatePool).offer(d)) d.end();
+    }
+
+    private static void drain(ArrayBlockingQueue<Deflater> pool) {
+        if (pool == null) return;
+        for (Deflater d; (d = pool.poll()) != null; ) d.end();
+    }
+
+    // 0 when the JVM has no (or has disabled) per-thread CPU timing, so nothing is recorded
+    private static long cpuTime() {
+        if (!CPU_TIMING) return 0;
+        long nanos = THREADS.getCurrentThreadCpuTime();
+        return nanos < 0 ? 0 : nanos;
+    }
+
+    private static int intParam(FilterConfig config, String name, int defaultValue) {
+        String value = config.getInitParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public static class EndpointStats {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder compressed = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+
+        public long getResponses() { return responses.sum(); }
+        public long getCompressedResponses() { return compressed.sum(); }
+        public long getBytesIn() { return bytesIn.sum(); }
+        public long getBytesOut() { return bytesOut.sum(); }
+        public long getBytesSaved() { return bytesIn.sum() - bytesOut.sum(); }
+        public long getCompressionCpuNanos() { return cpuNanos.sum(); }
+    }
+
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+        private final String encoding;
+        private final EndpointStats endpoint;
+        private final CompressingStream stream = new CompressingStream();
+        private PrintWriter writer;
+        private boolean streamTaken;
+        private long declaredLength = -1;
+
+        CompressingResponse(HttpServletResponse response, String encoding, EndpointStats endpoint) {
+            super(response);
+            this.encoding = encoding;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            streamTaken = true;
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (streamTaken) throw new IllegalStateException("getOutputStream() has already been called");
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // The length of the uncompressed body only applies if it ends up sent as is
+        @Override
+        public void setContentLength(int len) {
+            declaredLength = len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            declaredLength = len;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                declareLength(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                declareLength(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        // null clears the length, like setHeader does for other headers; a value that
+        // does not parse is ignored rather than failing the servlet's header call
+        private void declareLength(String value) {
+            if (value == null) {
+                declaredLength = -1;
+                return;
+            }
+            long len = NumberParser.parseLong(value.trim(), -1);
+            if (len >= 0) declaredLength = len;
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                declaredLength = value;
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) writer.flush();
+            stream.flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            stream.discardPending();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            stream.discardPending();
+            declaredLength = -1;
+        }
+
+        void finish() throws IOException {
+            if (writer != null) writer.flush();
+            stream.close();
+        }
+
+        // Each public call makes at most one write to the wrapped stream, so that
+        // isReady() keeps its meaning when the response is written through a WriteListener
+        private final class CompressingStream extends ServletOutputStream {
+            private byte[] pending = new byte[Math.min(minSize, 8192) + 1];
+            private int pendingLength;
+            private boolean passThrough;
+            private Deflater deflater;
+            private final CRC32 crc = new CRC32();
+            private byte[] staged;
+            private int stagedLength;
+            private long in;
+            private long written;
+            private long cpu;
+            private boolean closed;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (closed) throw new IOException("Stream closed");
+                if (len == 0) return;
+                in += len;
+                if (passThrough) {
+                    getResponse().getOutputStream().write(b, off, len);
+                    written += len;
+                    return;
+                }
+                if (deflater == null) {
+                    if (pendingLength + len <= minSize) {
+                        if (pendingLength + len > pending.length) {
+                            pending = Arrays.copyOf(pending, Math.min(minSize + 1, Math.max(pending.length * 2, pendingLength + len)));
+                        }
+                        System.arraycopy(b, off, pending, pendingLength, len);
+                        pendingLength += len;
+                        return;
+                    }
+                    if (!startCompression()) {
+                        stage(b, off, len);
+                        push();
+                        return;
+                    }
+                }
+                deflate(b, off, len, Deflater.NO_FLUSH);
+                push();
+            }
+
+            // Flushing before minSize is reached commits the response uncompressed
+            @Override
+            public void flush() throws IOException {
+                if (closed) return;
+                if (deflater == null && !passThrough) startPassThrough(false);
+                if (deflater != null) deflate(null, 0, 0, Deflater.SYNC_FLUSH);
+                push();
+                getResponse().getOutputStream().flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) return;
+                try {
+                    if (deflater == null && !passThrough) {
+                        startPassThrough(true);
+                    } else if (deflater != null) {
+                        long start = cpuTime();
+                        deflater.finish();
+                        while (!deflater.finished()) {
+                            ensureStagingRoom();
+                            stagedLength += deflater.deflate(staged, stagedLength, staged.length - stagedLength);
+                        }
+                        cpu += cpuTime() - start;
+                        if (encoding.equals(GZIP)) stageGzipTrailer();
+                    }
+                    push();
+                } finally {
+                    closed = true;
+                    if (deflater != null) {
+                        release(encoding, deflater);
+                        deflater = null;
+                    }
+                    endpoint.responses.increment();
+                    endpoint.bytesIn.add(in);
+                    endpoint.bytesOut.add(written);
+                    endpoint.cpuNanos.add(cpu);
+                }
+            }
+
+            boolean isClosed() {
+                return closed;
+            }
+
+            void discardPending() {
+                if (deflater == null && !passThrough) {
+                    in -= pendingLength;
+                    pendingLength = 0;
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(listener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            // Returns false and switches to pass-through if the body cannot be compressed
+            private boolean startCompression() throws IOException {
+                HttpServletResponse resp = (HttpServletResponse) getResponse();
+                if (resp.isCommitted() || resp.containsHeader("Content-Encoding")) {
+                    startPassThrough(false);
+                    return false;
+                }
+                resp.setHeader("Content-Encoding", encoding);
+                staged = new byte[8192];
+                deflater = borrow(encoding);
+                endpoint.compressed.increment();
+                if (encoding.equals(GZIP)) stage(GZIP_HEADER, 0, GZIP_HEADER.length);
+                int held = pendingLength;
+                pendingLength = 0;
+                deflate(pending, 0, held, Deflater.NO_FLUSH);
+                pending = null;
+                return true;
+            }
+
+            // Stages the held bytes; the caller pushes them
+            private void startPassThrough(boolean complete) {
+                HttpServletResponse resp = (HttpServletResponse) getResponse();
+                if (complete && !resp.isCommitted()) {
+                    resp.setContentLength(pendingLength);
+                } else if (declaredLength >= 0 && !resp.isCommitted()) {
+                    resp.setContentLengthLong(declaredLength);
+                }
+                passThrough = true;
+                staged = pending;
+                stagedLength = pendingLength;
+                pendingLength = 0;
+                pending = null;
+            }
+
+            private void deflate(byte[] b, int off, int len, int flushMode) {
+                long start = cpuTime();
+                if (len > 0) {
+                    if (encoding.equals(GZIP)) crc.update(b, off, len);
+                    deflater.setInput(b, off, len);
+                }
+                while (true) {
+                    ensureStagingRoom();
+                    int room = staged.length - stagedLength;
+                    int n = deflater.deflate(staged, stagedLength, room, flushMode);
+                    stagedLength += n;
+                    if (n < room && deflater.needsInput()) break;
+                }
+                cpu += cpuTime() - start;
+            }
+
+            private void stage(byte[] b, int off, int len) {
+                if (staged == null) staged = new byte[Math.max(len, 64)];
+                if (stagedLength + len > staged.length) {
+                    staged = Arrays.copyOf(staged, Math.max(staged.length * 2, stagedLength + len));
+                }
+                System.arraycopy(b, off, staged, stagedLength, len);
+                stagedLength += len;
+            }
+
+            private void ensureStagingRoom() {
+                if (staged.length - stagedLength < 64) staged = Arrays.copyOf(staged, staged.length * 2);
+            }
+
+            private void push() throws IOException {
+                if (stagedLength == 0) return;
+                getResponse().getOutputStream().write(staged, 0, stagedLength);
+                written += stagedLength;
+                stagedLength = 0;
+                // a pass-through stream has no further use for the held-back buffer
+                if (passThrough) staged = null;
+            }
+
+            private void stageGzipTrailer() {
+                long c = crc.getValue();
+                long size = deflater.getBytesRead();
+                byte[] trailer = {
+                    (byte) c, (byte) (c >> 8), (byte) (c >> 16), (byte) (c >> 24),
+                    (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+                };
+                stage(trailer, 0, trailer.length);
+            }
+        }
+    }
+}
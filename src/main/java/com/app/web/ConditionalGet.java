@@ -0,0 +1,63 @@
+package com.app.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * ETag / If-None-Match handling for responses derived from a versioned row.
+ * The tag is weak (W/"id-version"): the rendered markup is the same for a
+ * given version, but the bytes on the wire are not once CompressionFilter
+ * picks a content coding, and weak comparison is what If-None-Match uses
+ * anyway. Only GET and HEAD are answered with 304.
+ *
+ *   long version = entityService.getEntityVersion(id);
+ *   if (ConditionalGet.notModified(req, resp, id, version)) return;
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    // Sets the ETag and, if the client already holds this version, sends 304 and returns true.
+    // A negative version (missing row) sets nothing and always renders.
+    public static boolean notModified(HttpServletRequest req, HttpServletResponse resp, long id, long version) {
+        if (version < 0) return false;
+        String etag = etag(id, version);
+        resp.setHeader("ETag", etag);
+        String method = req.getMethod();
+        if (method != null && !method.equals("GET") && !method.equals("HEAD")) return false;
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch == null || !matches(ifNoneMatch, etag)) return false;
+        resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+    }
+
+    public static String etag(long id, long version) {
+        return "W/\"" + id + '-' + version + '"';
+    }
+
+    // Weak comparison against a comma-separated list of entity tags, or "*"
+    static boolean matches(String header, String etag) {
+        // the opaque part of our own tag, quotes included
+        int tagStart = 2;
+        int tagLength = etag.length() - tagStart;
+        int i = 0;
+        int n = header.length();
+        while (i < n) {
+            char c = header.charAt(i);
+            if (c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+            if (c == '*') return true;
+            if (c == 'W' && i + 1 < n && header.charAt(i + 1) == '/') i += 2;
+            int end = header.indexOf(',', i);
+            if (end < 0) end = n;
+            int last = end;
+            while (last > i && (header.charAt(last - 1) == ' ' || header.charAt(last - 1) == '\t')) last--;
+            if (last - i == tagLength && header.regionMatches(i, etag, tagStart, tagLength)) return true;
+            i = end;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package com.app.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Final encoded bytes of rendered fragments, kept per (endpoint, entity id)
+ * together with the entity version and charset they were rendered for. A hit
+ * is a single write of the stored array to the response stream; a new version
+ * simply misses and replaces the old entry. The cache is an LRU bounded by
+ * total stored bytes, and fragments larger than an eighth of the bound are
+ * never stored.
+ */
+public class FragmentCache {
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long maxBytes;
+    private final Map<Key, Fragment> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long storedBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FragmentCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    public interface Renderer {
+        void render(Writer out) throws IOException, SQLException;
+    }
+
+    // Serves the fragment for (endpoint, id, version) from the cache, rendering and storing
+    // it first on a miss. A negative version (missing entity) is rendered but not stored.
+    public void render(HttpServletResponse resp, String endpoint, long id, long version, Renderer renderer) throws IOException, SQLException {
+        String charset = resp.getCharacterEncoding();
+        byte[] bytes = version < 0 ? null : get(endpoint, id, version, charset);
+        if (bytes == null) {
+            bytes = renderBytes(renderer, charset);
+            if (version >= 0) put(endpoint, id, version, charset, bytes);
+        }
+        resp.getOutputStream().write(bytes);
+    }
+
+    public byte[] get(String endpoint, long id, long version, String charset) {
+        Key key = new Key(endpoint, id);
+        synchronized (entries) {
+            Fragment f = entries.get(key);
+            if (f != null && f.version == version && f.charset.equals(charset)) {
+                hits.incrementAndGet();
+                return f.bytes;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // An entry for a newer version is never replaced by one rendered from an older read
+    public void put(String endpoint, long id, long version, String charset, byte[] bytes) {
+        long size = bytes.length + ENTRY_OVERHEAD;
+        if (size > maxBytes / 8) return;
+        Key key = new Key(endpoint, id);
+        synchronized (entries) {
+            Fragment old = entries.get(key);
+            if (old != null) {
+                if (old.version > version) return;
+                storedBytes -= old.size();
+            }
+            entries.put(key, new Fragment(version, charset, bytes));
+            storedBytes += size;
+            Iterator<Fragment> eldest = entries.values().iterator();
+            while (storedBytes > maxBytes && eldest.hasNext()) {
+                storedBytes -= eldest.next().size();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Invalidation hooks for writers: drop an entity from one endpoint, or from all of them
+    public void invalidate(String endpoint, long id) {
+        synchronized (entries) {
+            Fragment f = entries.remove(new Key(endpoint, id));
+            if (f != null) storedBytes -= f.size();
+        }
+    }
+
+    public void invalidate(long id) {
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, Fragment>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Fragment> e = it.next();
+                if (e.getKey().id == id) {
+                    storedBytes -= e.getValue().size();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            storedBytes = 0;
+        }
+    }
+
+    public long getStoredBytes() {
+        synchronized (entries) {
+            return storedBytes;
+        }
+    }
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getEvictionCount() { return evictions.get(); }
+
+    private static byte[] renderBytes(Renderer renderer, String charset) throws IOException, SQLException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        Writer out = new OutputStreamWriter(bytes, charset);
+        renderer.render(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static final class Key {
+        final String endpoint;
+        final long id;
+
+        Key(String endpoint, long id) {
+            this.endpoint = endpoint;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return id == other.id && endpoint.equals(other.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + endpoint.hashCode();
+        }
+    }
+
+    private static final class Fragment {
+        final long version;
+        final String charset;
+        final byte[] bytes;
+
+        Fragment(long version, String charset, byte[] bytes) {
+            this.version = version;
+            this.charset = charset;
+            this.bytes = bytes;
+        }
+
+        long size() {
+            return bytes.length + ENTRY_OVERHEAD;
+        }
+    }
+}
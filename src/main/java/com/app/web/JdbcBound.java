@@ -0,0 +1,24 @@
+package com.app.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller, or a single handler method, whose work blocks on JDBC.
+ * Such handlers are run through {@link AsyncJdbcExecutor} so that container
+ * threads are not held while the database answers. By default their output is
+ * buffered in full before it is sent; handlers that write rows as a cursor is
+ * read set streaming, and their output goes out while they run. A method's
+ * annotation overrides its controller's.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface JdbcBound {
+
+    // Send the output as it is written, through a bounded buffer, instead of buffering it in full
+    boolean streaming() default false;
+}
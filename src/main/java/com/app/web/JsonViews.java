@@ -0,0 +1,48 @@
+package com.app.web;
+
+import com.app.model.Account;
+import com.app.model.AccountSummary;
+import com.app.model.Entity;
+import com.app.util.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Hand-written JSON shapes for the models, one object per call. Accounts are
+ * only ever written in their masked form, whether they come from an Account
+ * or a database-masked AccountSummary; entity email is left out, as in the
+ * HTML views.
+ */
+public final class JsonViews {
+
+    private JsonViews() {
+    }
+
+    public static void entity(JsonWriter json, Entity e) throws IOException {
+        json.beginObject()
+            .name("id").value(e.getId())
+            .name("name").value(e.getName())
+            .name("status").value(e.getStatus())
+            .name("active").value(e.isActive())
+            .name("balance").value(e.getBalance())
+            .name("version").value(e.getVersion())
+            .endObject();
+    }
+
+    public static void account(JsonWriter json, Account a) throws IOException {
+        summary(json, a.getAccountId(), a.getMaskedSsn(), a.getMaskedAccount(), a.getTier(), a.isVerified());
+    }
+
+    public static void account(JsonWriter json, AccountSummary s) throws IOException {
+        summary(json, s.getAccountId(), s.getMaskedSsn(), s.getMaskedAccountNumber(), s.getTier(), s.isVerified());
+    }
+
+    private static void summary(JsonWriter json, long id, String maskedSsn, String maskedAccount, int tier, boolean verified) throws IOException {
+        json.beginObject()
+            .name("accountId").value(id)
+            .name("maskedSsn").value(maskedSsn)
+            .name("maskedAccountNumber").value(maskedAccount)
+            .name("tier").value(tier)
+            .name("verified").value(verified)
+            .endObject();
+    }
+}
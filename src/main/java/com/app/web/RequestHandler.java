@@ -0,0 +1,8 @@
+package com.app.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public interface RequestHandler {
+    void handle(HttpServletRequest req, HttpServletResponse resp) throws Exception;
+}
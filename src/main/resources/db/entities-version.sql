@@ -0,0 +1,7 @@
+-- Row version for entities, used for ETags (web.ConditionalGet) and cached
+-- fragments (web.FragmentCache). Existing rows start at 0.
+--
+-- Every statement that changes an entity row must also set
+-- version = version + 1, as EntityRepository.update does; a write that skips
+-- it leaves clients holding the old ETag with 304 responses for stale content.
+ALTER TABLE entities ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
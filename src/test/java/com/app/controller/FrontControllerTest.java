@@ -0,0 +1,134 @@
+package com.app.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.app.repository.AccountRepository;
+import com.app.repository.EntityRepository;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Container-style start-up of FrontController: the controllers are built in
+ * init() from the repository context attributes, and routes are registered
+ * only for controllers whose repositories are present.
+ */
+public class FrontControllerTest {
+
+    private Connection connection;
+
+    @Before
+    public void database() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE entities(id BIGINT PRIMARY KEY, name VARCHAR(100), email VARCHAR(100),"
+                    + " status INT, active BOOLEAN, balance DOUBLE, version BIGINT DEFAULT 0 NOT NULL)");
+            stmt.execute("INSERT INTO entities(id, name, email, status, active, balance) VALUES (7, 'seven', 's@x.co', 1, TRUE, 1.5)");
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void withoutRepositoriesOnlyNonDatabaseRoutes() throws ServletException {
+        FrontController front = start(new HashMap<>());
+        List<String> routes = front.getRoutes();
+        assertTrue(routes.contains("/input/handleCode"));
+        for (String path : routes) {
+            assertTrue(path, path.startsWith("/input/") || path.startsWith("/framework/"));
+        }
+        front.destroy();
+    }
+
+    @Test
+    public void entityRepositoryAloneWiresEntityOnlyControllers() throws ServletException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(FrontController.ENTITY_REPOSITORY, new EntityRepository(connection));
+        FrontController front = start(attributes);
+        boolean batch = false;
+        for (String path : front.getRoutes()) {
+            batch |= path.startsWith("/batch/");
+            assertFalse(path, path.startsWith("/data/") || path.startsWith("/json/"));
+        }
+        assertTrue(batch);
+        front.destroy();
+    }
+
+    @Test
+    public void injectedRepositoriesReachDatabaseRoutes() throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(FrontController.ENTITY_REPOSITORY, new EntityRepository(connection));
+        attributes.put(FrontController.ACCOUNT_REPOSITORY, new AccountRepository(connection));
+        FrontController front = start(attributes);
+        assertTrue(front.getRoutes().contains("/display/renderEntityName"));
+
+        StringWriter body = new StringWriter();
+        Map<String, Object> request = new HashMap<>();
+        request.put("getPathInfo", "/json/entity");
+        request.put("getParameter", "7");
+        request.put("getMethod", "GET");
+        Map<String, Object> response = new HashMap<>();
+        response.put("getWriter", new PrintWriter(body));
+        front.service(stub(HttpServletRequest.class, request), stub(HttpServletResponse.class, response));
+
+        assertTrue(body.toString(), body.toString().contains("\"name\":\"seven\""));
+        assertEquals(1, front.getInvocationCount("/json/entity"));
+        front.destroy();
+    }
+
+    @Test(expected = ServletException.class)
+    public void wrongAttributeTypeFailsInit() throws ServletException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(FrontController.ENTITY_REPOSITORY, "not a repository");
+        start(attributes);
+    }
+
+    private static FrontController start(Map<String, Object> attributes) throws ServletException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("getAttribute", attributes);
+        ServletContext servletContext = stub(ServletContext.class, context);
+        Map<String, Object> config = new HashMap<>();
+        config.put("getServletContext", servletContext);
+        config.put("getServletName", "front");
+        config.put("getInitParameterNames", Collections.emptyEnumeration());
+        FrontController front = new FrontController();
+        front.init(stub(ServletConfig.class, config));
+        return front;
+    }
+
+    // Methods answer from the map (a nested map is looked up by the first argument);
+    // anything else returns null, false or zero
+    private static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Object answer = answers.get(method.getName());
+            if (answer instanceof Map) answer = ((Map<?, ?>) answer).get(args[0]);
+            if (answer != null) return answer;
+            Class<?> r = method.getReturnType();
+            if (r == boolean.class) return false;
+            if (r == int.class) return 0;
+            if (r == long.class) return 0L;
+            return null;
+        }));
+    }
+}
@@ -0,0 +1,97 @@
+package com.app.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.app.model.Entity;
+import com.app.web.ConditionalGet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Scanner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The entity version column as shipped by db/entities-version.sql, applied to
+ * a table created without it, and the bump EntityRepository.update makes on
+ * every write so ETags change with the row.
+ */
+public class EntityRepositoryTest {
+
+    private Connection connection;
+    private EntityRepository repo;
+
+    @Before
+    public void migrate() throws SQLException, IOException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE entities(id BIGINT PRIMARY KEY, name VARCHAR(100), email VARCHAR(100),"
+                    + " status INT, active BOOLEAN, balance DOUBLE)");
+            stmt.execute("INSERT INTO entities VALUES (1, 'first', 'a@b.co', 1, TRUE, 2.5)");
+            for (String sql : script("/db/entities-version.sql")) stmt.execute(sql);
+        }
+        repo = new EntityRepository(connection);
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void existingRowsStartAtVersionZero() throws SQLException {
+        assertEquals(0, repo.findVersion(1));
+        assertEquals(0, repo.findById(1).orElseThrow(AssertionError::new).getVersion());
+        assertEquals(-1, repo.findVersion(2));
+    }
+
+    @Test
+    public void updateBumpsVersionAndETag() throws SQLException {
+        Entity e = repo.findById(1).orElseThrow(AssertionError::new);
+        String before = ConditionalGet.etag(e.getId(), repo.findVersion(1));
+        e.setName("renamed");
+        assertTrue(repo.update(e));
+        assertEquals(1, e.getVersion());
+        assertEquals(1, repo.findVersion(1));
+        assertEquals("renamed", repo.findById(1).orElseThrow(AssertionError::new).getName());
+        assertNotEquals(before, ConditionalGet.etag(e.getId(), repo.findVersion(1)));
+    }
+
+    @Test
+    public void staleOrMissingUpdateIsRejected() throws SQLException {
+        Entity first = repo.findById(1).orElseThrow(AssertionError::new);
+        Entity second = repo.findById(1).orElseThrow(AssertionError::new);
+        first.setStatus(2);
+        assertTrue(repo.update(first));
+
+        second.setStatus(3);
+        assertFalse(repo.update(second));
+        assertEquals(0, second.getVersion());
+        assertEquals(2, repo.findById(1).orElseThrow(AssertionError::new).getStatus());
+
+        assertFalse(repo.update(new Entity(2, "missing")));
+    }
+
+    // Statements separated by ';', with '--' comment lines dropped
+    private static String[] script(String resource) throws IOException {
+        try (InputStream in = EntityRepositoryTest.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IOException(resource + " not on the classpath");
+            StringBuilder sql = new StringBuilder();
+            try (Scanner lines = new Scanner(in, StandardCharsets.UTF_8.name())) {
+                while (lines.hasNextLine()) {
+                    String line = lines.nextLine();
+                    if (!line.trim().startsWith("--")) sql.append(line).append('\n');
+                }
+            }
+            return sql.toString().trim().split("\\s*;\\s*");
+        }
+    }
+}
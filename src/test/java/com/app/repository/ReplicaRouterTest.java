@@ -0,0 +1,126 @@
+package com.app.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.app.model.Entity;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ReplicaRouter against a replica served from a one-connection "pool": the
+ * read-only flag set for a replica read must not stick to the connection
+ * after it is handed back. Also runs the routing repositories against H2.
+ */
+public class ReplicaRouterTest {
+
+    private Connection primary;
+    private Connection replica;
+    private final boolean[] replicaReadOnly = new boolean[1];
+    private ExecutorService executor;
+    private ReplicaRouter router;
+
+    @Before
+    public void databases() throws SQLException {
+        primary = DriverManager.getConnection("jdbc:h2:mem:");
+        replica = DriverManager.getConnection("jdbc:h2:mem:");
+        for (Connection c : new Connection[] { primary, replica }) {
+            try (Statement stmt = c.createStatement()) {
+                stmt.execute("CREATE TABLE entities(id BIGINT PRIMARY KEY, name VARCHAR(100), email VARCHAR(100),"
+                        + " status INT, active BOOLEAN, balance DOUBLE, version BIGINT DEFAULT 0 NOT NULL)");
+                stmt.execute("INSERT INTO entities(id, name, email, status, active, balance) VALUES (1, 'one', 'o@x.co', 2, TRUE, 1.0)");
+                stmt.execute("CREATE TABLE accounts(account_id BIGINT PRIMARY KEY, account_number VARCHAR(20),"
+                        + " ssn VARCHAR(11), password VARCHAR(100), tier INT, verified BOOLEAN)");
+                stmt.execute("INSERT INTO accounts VALUES (5, '12345678', '123-45-6789', 'x', 3, TRUE)");
+            }
+        }
+        executor = Executors.newFixedThreadPool(2);
+        router = new ReplicaRouter(pooled(primary, new boolean[1]),
+                Collections.singletonList(pooled(replica, replicaReadOnly)), executor);
+    }
+
+    @After
+    public void close() throws SQLException {
+        executor.shutdownNow();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    public void replicaReadRestoresReadOnlyFlag() throws SQLException {
+        assertTrue(router.read(Connection::isReadOnly));
+        assertFalse(replicaReadOnly[0]);
+    }
+
+    @Test
+    public void failedReplicaReadRestoresReadOnlyFlag() {
+        try {
+            router.readOnce(connection -> {
+                throw new SQLException("query failed");
+            });
+            fail("failure swallowed");
+        } catch (SQLException expected) {
+            assertEquals("query failed", expected.getMessage());
+        }
+        assertFalse(replicaReadOnly[0]);
+    }
+
+    @Test
+    public void alreadyReadOnlyConnectionStaysReadOnly() throws SQLException {
+        replicaReadOnly[0] = true;
+        assertTrue(router.read(Connection::isReadOnly));
+        assertTrue(replicaReadOnly[0]);
+    }
+
+    @Test
+    public void routingRepositoriesUseSharedStatements() throws Exception {
+        RoutingEntityRepository entities = new RoutingEntityRepository(router);
+        Entity e = entities.findById(1).orElseThrow(AssertionError::new);
+        assertEquals("one", e.getName());
+        assertEquals(1, entities.findByStatus(2).size());
+        assertEquals(1, entities.findAll().size());
+        assertEquals(0, entities.findVersion(1));
+        assertEquals(1, entities.findByIds(new long[] { 1, 9 }).size());
+
+        RoutingAccountRepository accounts = new RoutingAccountRepository(router);
+        assertEquals("123-45-6789", accounts.findById(5).orElseThrow(AssertionError::new).getSsn());
+        assertEquals(1, accounts.findAll().size());
+        assertEquals("***-**-6789", accounts.findSummaryById(5).orElseThrow(AssertionError::new).getMaskedSsn());
+        assertFalse(replicaReadOnly[0]);
+    }
+
+    // Hands out the same connection every time and ignores close(), as a pool would. H2 ignores
+    // the read-only hint, so the flag is kept in readOnly[0] instead.
+    private static DataSource pooled(Connection connection, boolean[] readOnly) {
+        Connection handle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (p, method, args) -> {
+            switch (method.getName()) {
+                case "close": return null;
+                case "isReadOnly": return readOnly[0];
+                case "setReadOnly": readOnly[0] = (Boolean) args[0]; return null;
+                default: break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[] { DataSource.class },
+                (p, method, args) -> method.getName().equals("getConnection") ? handle : null);
+    }
+}
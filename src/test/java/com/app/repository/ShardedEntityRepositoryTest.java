@@ -0,0 +1,280 @@
+package com.app.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.app.model.Entity;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ShardedEntityRepository over three in-memory H2 databases: rows are placed
+ * on the shard shardFor() names, then read back through point lookups,
+ * streaming scans and per-shard aggregates. The cancellation tests check that
+ * a failed scan or aggregate leaves no shard worker running.
+ */
+public class ShardedEntityRepositoryTest {
+
+    private static final int SHARDS = 3;
+    private static final long[] RANGE_BOUNDS = { 1_000, 2_000 };
+
+    private final List<DataSource> shards = new ArrayList<>();
+    private final List<Connection> keepAlive = new ArrayList<>();
+    private ThreadPoolExecutor executor;
+
+    @Before
+    public void createShards() throws SQLException {
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < SHARDS; i++) {
+            JdbcDataSource ds = new JdbcDataSource();
+            ds.setURL("jdbc:h2:mem:shard" + i + "-" + run);
+            // an in-memory database lives as long as one connection to it is open
+            Connection connection = ds.getConnection();
+            keepAlive.add(connection);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE entities(id BIGINT PRIMARY KEY, name VARCHAR(100), email VARCHAR(100),"
+                        + " status INT, active BOOLEAN, balance DOUBLE, version BIGINT DEFAULT 0 NOT NULL)");
+            }
+            shards.add(ds);
+        }
+        executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(SHARDS);
+    }
+
+    @After
+    public void dropShards() throws SQLException {
+        executor.shutdownNow();
+        for (Connection connection : keepAlive) connection.close();
+    }
+
+    @Test
+    public void hashRoutingPlacesEachRowOnItsShard() throws SQLException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, executor);
+        int[] perShard = populate(repo, 1, 600);
+        for (int count : perShard) {
+            assertTrue("hash routing left a shard nearly empty", count > 100);
+        }
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals(perShard[i], countOn(i));
+        }
+
+        for (long id = 1; id <= 600; id += 37) {
+            int shard = repo.shardFor(id);
+            long before = repo.getQueryCount(shard);
+            Entity e = repo.findById(id).orElseThrow(AssertionError::new);
+            assertEquals(id, e.getId());
+            assertEquals("entity-" + id, e.getName());
+            assertEquals(before + 1, repo.getQueryCount(shard));
+        }
+        assertFalse(repo.findById(601).isPresent());
+    }
+
+    @Test
+    public void rangeRoutingHonoursExclusiveUpperBounds() throws SQLException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, RANGE_BOUNDS, executor);
+        assertEquals(0, repo.shardFor(Long.MIN_VALUE));
+        assertEquals(0, repo.shardFor(999));
+        assertEquals(1, repo.shardFor(1_000));
+        assertEquals(1, repo.shardFor(1_999));
+        assertEquals(2, repo.shardFor(2_000));
+        assertEquals(2, repo.shardFor(Long.MAX_VALUE));
+
+        assertArrayEquals(new int[] { 10, 20, 20 }, populateIds(repo, 990, 1_000, 1_990, 2_000, 2_990));
+        for (long id : new long[] { 999, 1_000, 1_999, 2_000 }) {
+            assertEquals(id, repo.findById(id).orElseThrow(AssertionError::new).getId());
+        }
+    }
+
+    @Test
+    public void updateGoesToOwningShard() throws SQLException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, RANGE_BOUNDS, executor);
+        populateIds(repo, 1_500);
+        Entity e = repo.findById(1_505).orElseThrow(AssertionError::new);
+        e.setBalance(42);
+        assertTrue(repo.update(e));
+        assertEquals(1, repo.findVersion(1_505));
+        assertEquals(42, repo.findById(1_505).orElseThrow(AssertionError::new).getBalance(), 0);
+        e.setVersion(0);
+        assertFalse(repo.update(e));
+    }
+
+    @Test
+    public void rangeBoundsAreValidated() {
+        try {
+            new ShardedEntityRepository(shards, new long[] { 1_000 }, executor);
+            fail("too few bounds accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new ShardedEntityRepository(shards, new long[] { 2_000, 1_000 }, executor);
+            fail("descending bounds accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void findByIdsGroupsLookupsPerShard() throws SQLException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, RANGE_BOUNDS, executor);
+        populate(repo, 1, 3_000);
+        long[] ids = { 5, 2_500, 1_500, 7_000, 999, 2_000 };
+        Set<Long> found = new HashSet<>();
+        for (Entity e : repo.findByIds(ids)) {
+            assertTrue("duplicate " + e.getId(), found.add(e.getId()));
+        }
+        assertEquals(new HashSet<>(java.util.Arrays.asList(5L, 2_500L, 1_500L, 999L, 2_000L)), found);
+    }
+
+    @Test
+    public void scansAndAggregatesCoverEveryShard() throws SQLException, IOException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, executor);
+        // more rows than the stream buffer, so producers block on the queue while the caller reads
+        populate(repo, 1, 5_000);
+
+        Set<Long> seen = new HashSet<>();
+        repo.forEachAll(e -> assertTrue("duplicate " + e.getId(), seen.add(e.getId())));
+        assertEquals(5_000, seen.size());
+        assertEquals(5_000, repo.findAll().size());
+
+        List<Entity> active = repo.findByStatus(1);
+        assertEquals(2_500, active.size());
+        for (Entity e : active) assertEquals(1, e.getStatus());
+
+        assertEquals(5_000, repo.count());
+        assertEquals(2_500, repo.countByStatus(0));
+        // balance is id / 2, so the sum is exact in a double
+        assertEquals(5_000 * 5_001 / 4.0, repo.sumBalance(), 0);
+    }
+
+    @Test
+    public void forEachAfterMergesShardsInIdOrder() throws SQLException, IOException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, executor);
+        populate(repo, 1, 2_000);
+        List<Long> ids = new ArrayList<>();
+        repo.forEachAfter(1_234, 100, e -> ids.add(e.getId()));
+        assertEquals(100, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(1_235L + i, (long) ids.get(i));
+        }
+    }
+
+    @Test
+    public void failingHandlerCancelsShardScans() throws SQLException, InterruptedException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, executor);
+        populate(repo, 1, 9_000);
+
+        AtomicInteger handled = new AtomicInteger();
+        try {
+            repo.forEachAll(e -> {
+                if (handled.incrementAndGet() == 10) throw new IOException("client gone");
+            });
+            fail("handler failure swallowed");
+        } catch (IOException expected) {
+            assertEquals("client gone", expected.getMessage());
+        }
+        assertEquals(10, handled.get());
+        // without cancellation the workers would stay blocked on the full queue
+        awaitIdle();
+
+        assertEquals(9_000, repo.count());
+    }
+
+    @Test
+    public void failingShardCancelsGather() throws SQLException, InterruptedException {
+        ShardedEntityRepository repo = new ShardedEntityRepository(shards, executor);
+        populate(repo, 1, 300);
+        try (Statement stmt = keepAlive.get(1).createStatement()) {
+            stmt.execute("DROP TABLE entities");
+        }
+
+        try {
+            repo.count();
+            fail("shard failure swallowed");
+        } catch (SQLException expected) {
+        }
+        try {
+            repo.forEachAll(e -> { });
+            fail("shard failure swallowed");
+        } catch (SQLException | IOException expected) {
+            assertTrue(expected instanceof SQLException);
+        }
+        awaitIdle();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        // a worker between two tasks is not active, so wait on the queue as well
+        while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()) {
+            assertTrue(executor.getActiveCount() + " shard workers still running, " + executor.getQueue().size() + " queued",
+                    System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // ids from..to inclusive; status alternates and balance is id / 2
+    private int[] populate(ShardedEntityRepository repo, long from, long to) throws SQLException {
+        long[] ids = new long[(int) (to - from + 1)];
+        for (int i = 0; i < ids.length; i++) ids[i] = from + i;
+        return insert(repo, ids);
+    }
+
+    // ten consecutive ids starting at each of the given ones
+    private int[] populateIds(ShardedEntityRepository repo, long... starts) throws SQLException {
+        long[] ids = new long[starts.length * 10];
+        for (int i = 0; i < ids.length; i++) ids[i] = starts[i / 10] + i % 10;
+        return insert(repo, ids);
+    }
+
+    private int[] insert(ShardedEntityRepository repo, long[] ids) throws SQLException {
+        int[] perShard = new int[SHARDS];
+        List<PreparedStatement> inserts = new ArrayList<>(SHARDS);
+        try {
+            for (Connection connection : keepAlive) {
+                inserts.add(connection.prepareStatement(
+                        "INSERT INTO entities(id, name, email, status, active, balance) VALUES (?, ?, ?, ?, ?, ?)"));
+            }
+            for (long id : ids) {
+                int shard = repo.shardFor(id);
+                PreparedStatement stmt = inserts.get(shard);
+                stmt.setLong(1, id);
+                stmt.setString(2, "entity-" + id);
+                stmt.setString(3, "e" + id + "@example.com");
+                stmt.setInt(4, (int) (id & 1));
+                stmt.setBoolean(5, true);
+                stmt.setDouble(6, id / 2.0);
+                stmt.addBatch();
+                perShard[shard]++;
+            }
+            for (PreparedStatement stmt : inserts) stmt.executeBatch();
+        } finally {
+            for (PreparedStatement stmt : inserts) stmt.close();
+        }
+        return perShard;
+    }
+
+    private int countOn(int shard) throws SQLException {
+        try (Statement stmt = keepAlive.get(shard).createStatement();
+             java.sql.ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM entities")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.app.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.Test;
+
+/**
+ * HashingService against the JDK primitives, and the per-account memo: a hit
+ * skips the load, and a value loaded while the field was being invalidated
+ * must not be memoized.
+ */
+public class HashingServiceTest {
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void matchesJdkDigestAndMac() throws Exception {
+        HashingService hashing = new HashingService(KEY, 16);
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 300; i++) longText.append("é😀x");
+        for (String s : new String[] { "", "123-45-6789", longText.toString(), "x\ud83dy" }) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            assertEquals(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(utf8)),
+                    hashing.digestBase64(s));
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+            assertEquals(Base64.getEncoder().encodeToString(mac.doFinal(utf8)), hashing.hmacBase64(s));
+        }
+    }
+
+    @Test
+    public void memoSkipsTheLoadUntilInvalidated() {
+        HashingService hashing = new HashingService(KEY, 16);
+        AtomicInteger loads = new AtomicInteger();
+        String[] ssn = { "123-45-6789" };
+        HashingService.ValueLoader<RuntimeException> loader = () -> {
+            loads.incrementAndGet();
+            return ssn[0];
+        };
+
+        String first = hashing.hmacBase64(7, "ssn", loader);
+        assertEquals(first, hashing.hmacBase64(7, "ssn", loader));
+        assertEquals(1, loads.get());
+        assertEquals(1, hashing.getMemoHitCount());
+
+        ssn[0] = "987-65-4321";
+        hashing.invalidate(7, "ssn");
+        assertNotEquals(first, hashing.hmacBase64(7, "ssn", loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateDuringLoadIsNotLost() {
+        HashingService hashing = new HashingService(KEY, 16);
+        String[] ssn = { "123-45-6789" };
+        // the field changes, and is invalidated, after the loader has read the old value
+        String stale = hashing.hmacBase64(7, "ssn", () -> {
+            String read = ssn[0];
+            ssn[0] = "987-65-4321";
+            hashing.invalidate(7, "ssn");
+            return read;
+        });
+        assertEquals(hashing.hmacBase64("123-45-6789"), stale);
+        assertEquals(hashing.hmacBase64("987-65-4321"), hashing.hmacBase64(7, "ssn", () -> ssn[0]));
+    }
+}
@@ -0,0 +1,188 @@
+package com.app.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import org.junit.Test;
+
+/**
+ * Differential tests: each table-driven encoder against the controller helper
+ * it replaced, copied here verbatim from the pre-encoder controllers.
+ */
+public class EncodersTest {
+
+    private static final String[] EDGE_CASES = {
+        "",
+        "plain ascii 0123456789",
+        "& < > \" ' \\ / # % + = ? ;",
+        "\u0000\u0001\u0007\b\t\n\u000b\f\r\u001b\u001f\u007f",
+        "\u0080\u0085\u00a0\u00ad\u2028\u2029\ufeff\ufffd\uffff",
+        "caf\u00e9 \u4e2d\u6587 \u0645\u0631\u062d\u0628\u0627",
+        "\ud83d\ude00",                  // surrogate pair
+        "x\ud83dy",                      // lone high surrogate
+        "x\ude00y",                      // lone low surrogate
+        "\ude00\ud83d",                  // pair in the wrong order
+        "\ud83d",
+        "\ud83d\ude00\ud83d",
+        "</script><script>alert('x')</script>",
+        "a\r\nb\n\rc",
+    };
+
+    // ---- helpers as they were in InputController / FrameworkController / DisplayController ----
+
+    static String encodeForHTML(String input) {
+        if (input == null) return "";
+        return input.replace("&", "&amp;").replace("<", "&lt;")
+                    .replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&#x27;");
+    }
+
+    static String escapeHtml4(String input) {
+        if (input == null) return "";
+        return input.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                    .replace("\"", "&quot;").replace("'", "&#39;");
+    }
+
+    static String encodeForHtmlAttribute(String input) {
+        if (input == null) return "";
+        StringBuilder sb = new StringBuilder();
+        for (char c : input.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) sb.append(c);
+            else sb.append("&#").append((int) c).append(";");
+        }
+        return sb.toString();
+    }
+
+    static String encodeForJavaScript(String input) {
+        if (input == null) return "";
+        return input.replace("\\", "\\\\").replace("'", "\\'")
+                    .replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String escapeJsonString(String input) {
+        if (input == null) return "";
+        return input.replace("\\", "\\\\").replace("\"", "\\\"")
+                    .replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+    }
+
+    static String encodeForCSS(String input) {
+        if (input == null) return "";
+        return input.replaceAll("[^a-zA-Z0-9#]", "");
+    }
+
+    static String encodeForURL(String input) {
+        try {
+            return URLEncoder.encode(input != null ? input : "", "UTF-8");
+        } catch (Exception e) { return ""; }
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    @Test
+    public void html() throws IOException {
+        checkAll(Encoders.HTML, EncodersTest::encodeForHTML);
+    }
+
+    @Test
+    public void htmlDecimal() throws IOException {
+        checkAll(Encoders.HTML_DECIMAL, EncodersTest::escapeHtml4);
+    }
+
+    @Test
+    public void htmlAttribute() throws IOException {
+        checkAll(Encoders.HTML_ATTRIBUTE, EncodersTest::encodeForHtmlAttribute);
+    }
+
+    @Test
+    public void javaScript() throws IOException {
+        checkAll(Encoders.JAVASCRIPT, EncodersTest::encodeForJavaScript);
+    }
+
+    @Test
+    public void json() throws IOException {
+        checkAll(Encoders.JSON, EncodersTest::escapeJsonString);
+    }
+
+    @Test
+    public void cssFilter() throws IOException {
+        checkAll(Encoders.CSS_FILTER, EncodersTest::encodeForCSS);
+    }
+
+    @Test
+    public void formUrl() throws IOException {
+        checkAll(Encoders.FORM_URL, EncodersTest::encodeForURL);
+    }
+
+    @Test
+    public void sanitizerEscapeHtml() {
+        assertEquals(encodeForHTML(null), Sanitizer.escapeHtml(null));
+        for (String s : EDGE_CASES) {
+            assertEquals(encodeForHTML(s), Sanitizer.escapeHtml(s));
+        }
+        Random random = new Random(29);
+        for (int i = 0; i < 20_000; i++) {
+            String s = randomString(random);
+            assertEquals(encodeForHTML(s), Sanitizer.escapeHtml(s));
+        }
+    }
+
+    private static void checkAll(Encoder encoder, UnaryOperator<String> old) throws IOException {
+        assertEquals("null input", old.apply(null), encoder.encode(null));
+        for (String s : EDGE_CASES) {
+            check(encoder, old, s);
+        }
+        Random random = new Random(31);
+        for (int i = 0; i < 20_000; i++) {
+            check(encoder, old, randomString(random));
+        }
+    }
+
+    // The String, Appendable and sub-range forms must all agree with the old helper
+    private static void check(Encoder encoder, UnaryOperator<String> old, String s) throws IOException {
+        String expected = old.apply(s);
+        assertEncoded(expected, encoder.encode(s), s, "");
+
+        StringBuilder out = new StringBuilder();
+        encoder.encode(s, out);
+        assertEncoded(expected, out.toString(), s, " (appendable)");
+
+        out.setLength(0);
+        String padded = "\ud83d<" + s + "'\u00e9";
+        encoder.encode(padded, 2, 2 + s.length(), out);
+        assertEncoded(expected, out.toString(), s, " (sub-range)");
+    }
+
+    // The message is only built on a mismatch
+    private static void assertEncoded(String expected, String actual, String input, String form) {
+        if (!expected.equals(actual)) assertEquals(describe(input) + form, expected, actual);
+    }
+
+    // Mostly ASCII, with Latin/CJK, lone and paired surrogates and arbitrary chars mixed in
+    private static String randomString(Random random) {
+        int n = random.nextInt(32);
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            int k = random.nextInt(10);
+            if (k < 6) {
+                sb.append((char) random.nextInt(128));
+            } else if (k < 8) {
+                sb.append((char) (0x80 + random.nextInt(0x700)));
+            } else if (k < 9) {
+                sb.append((char) (0xD800 + random.nextInt(0x800)));
+            } else {
+                sb.append((char) random.nextInt(0x10000));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String describe(String s) {
+        StringBuilder sb = new StringBuilder("input:");
+        for (int i = 0; i < s.length(); i++) {
+            sb.append(String.format(" %04x", (int) s.charAt(i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.app.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * EncodingWriter against String concatenation of the same Encoders output,
+ * with a buffer small enough that most values straddle a flush.
+ */
+public class EncodingWriterTest {
+
+    @Test
+    public void matchesEncodersAcrossBufferBoundaries() throws IOException {
+        Random random = new Random(17);
+        for (int i = 0; i < 2_000; i++) {
+            StringWriter target = new StringWriter();
+            StringBuilder expected = new StringBuilder();
+            EncodingWriter out = new EncodingWriter(target, 16);
+            for (int j = random.nextInt(8); j >= 0; j--) {
+                String value = randomString(random);
+                out.write("<p>");
+                expected.append("<p>");
+                switch (random.nextInt(6)) {
+                    case 0: out.writeHtml(value); expected.append(Encoders.HTML.encode(value)); break;
+                    case 1: out.writeHtmlAttribute(value); expected.append(Encoders.HTML_ATTRIBUTE.encode(value)); break;
+                    case 2: out.writeJavaScript(value); expected.append(Encoders.JAVASCRIPT.encode(value)); break;
+                    case 3: out.writeCss(value); expected.append(Encoders.CSS_FILTER.encode(value)); break;
+                    case 4: out.writeUrlComponent(value); expected.append(Encoders.FORM_URL.encode(value)); break;
+                    default:
+                        long n = random.nextLong() >> random.nextInt(64);
+                        out.writeNumber(n);
+                        expected.append(n);
+                }
+            }
+            out.flush();
+            if (!expected.toString().equals(target.toString())) {
+                assertEquals("run " + i, expected.toString(), target.toString());
+            }
+        }
+    }
+
+    @Test
+    public void nullsAndNumberEdges() throws IOException {
+        StringWriter target = new StringWriter();
+        EncodingWriter out = new EncodingWriter(target);
+        out.writeHtml(null).writeJavaScript(null).writeUrlComponent(null);
+        out.writeNumber(0).write(' ');
+        out.writeNumber(Long.MIN_VALUE).write(' ');
+        out.writeNumber(Long.MAX_VALUE);
+        out.flush();
+        assertEquals("0 " + Long.MIN_VALUE + " " + Long.MAX_VALUE, target.toString());
+    }
+
+    private static String randomString(Random random) {
+        int n = random.nextInt(40);
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            int k = random.nextInt(10);
+            if (k < 7) {
+                sb.append((char) random.nextInt(128));
+            } else if (k < 9) {
+                sb.append((char) (0x80 + random.nextInt(0x700)));
+            } else {
+                sb.append(Character.toChars(0x1F600 + random.nextInt(64)));
+            }
+        }
+        return sb.toString();
+    }
+}
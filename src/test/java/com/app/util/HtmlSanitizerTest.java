@@ -0,0 +1,109 @@
+package com.app.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import org.junit.Test;
+
+/**
+ * HtmlSanitizer.basic() on the inputs a Jsoup-style clean has to get right:
+ * tags and attributes outside the allowlist, script URLs, raw-text elements,
+ * comments and unbalanced markup. The pathological inputs check that run time
+ * stays linear whatever the nesting.
+ */
+public class HtmlSanitizerTest {
+
+    private static final HtmlSanitizer BASIC = HtmlSanitizer.basic();
+
+    @Test
+    public void keepsOnlyAllowlistedTagsAndAttributes() {
+        assertEquals("<b>bold</b> and plain", BASIC.sanitize("<b onclick=\"x()\">bold</b> <div class=\"c\">and</div> plain"));
+        assertEquals("<p>a<br>b</p>", BASIC.sanitize("<P STYLE=\"color:red\">a<br/>b</p>"));
+        assertEquals("<blockquote cite=\"https://example.com/q\">q</blockquote>",
+                BASIC.sanitize("<blockquote cite='https://example.com/q' title=\"t\">q</blockquote>"));
+        assertEquals("x", BASIC.sanitize("<img src=\"https://example.com/a.png\" onerror=\"alert(1)\">x"));
+        assertEquals("", BASIC.sanitize(null));
+    }
+
+    @Test
+    public void dropsScriptUrls() {
+        assertEquals("<a>x</a>", BASIC.sanitize("<a href=\"javascript:alert(1)\">x</a>"));
+        assertEquals("<a>x</a>", BASIC.sanitize("<a href=' JaVaScRiPt:alert(1)'>x</a>"));
+        assertEquals("<a>x</a>", BASIC.sanitize("<a href=\"data:text/html,&lt;script&gt;\">x</a>"));
+        assertEquals("<a>x</a>", BASIC.sanitize("<a href>x</a>"));
+        assertEquals("<a href=\"https://example.com/?a=1&amp;b=&lt;2&gt;\">x</a>",
+                BASIC.sanitize("<a href=\"https://example.com/?a=1&b=<2>\">x</a>"));
+        assertEquals("<a href=\"mailto:a@example.com\">m</a>", BASIC.sanitize("<a HREF=mailto:a@example.com>m</a>"));
+    }
+
+    @Test
+    public void dropsRawTextElementsWithTheirContent() {
+        assertEquals("ok", BASIC.sanitize("<script>alert('<b>')</script>ok"));
+        assertEquals("ok", BASIC.sanitize("<STYLE>b{}</style >ok"));
+        assertEquals("a", BASIC.sanitize("a<script>never closed <b>x</b>"));
+        assertEquals("ok", BASIC.sanitize("<textarea></textareax></textarea>ok"));
+    }
+
+    @Test
+    public void commentsAndStrayMarkup() {
+        assertEquals("ab", BASIC.sanitize("a<!-- <script>alert(1)</script> -->b"));
+        assertEquals("a", BASIC.sanitize("a<!-- never closed <b>x"));
+        assertEquals("ab", BASIC.sanitize("a<!DOCTYPE html><?php x ?>b"));
+        assertEquals("1 &lt; 2 &amp; 3 &gt; 2 &amp; &#39; &#x1F600;",
+                BASIC.sanitize("1 < 2 & 3 > 2 &amp; &#39; &#x1F600;"));
+        assertEquals("&quot;q&quot; &#x27;s&#x27;", BASIC.sanitize("\"q\" 's'"));
+    }
+
+    @Test
+    public void unclosedAndMisnestedTagsAreBalanced() {
+        assertEquals("<b><i>x</i></b>", BASIC.sanitize("<b><i>x"));
+        assertEquals("<b><i>x</i></b>y", BASIC.sanitize("<b><i>x</b>y</i>"));
+        assertEquals("x", BASIC.sanitize("</b>x</ul>"));
+        assertEquals("<ul><li>a<li>b</li></li></ul>", BASIC.sanitize("<ul><li>a<li>b</ul>"));
+        assertEquals("<b>x</b>", BASIC.sanitize("<b>x</b"));
+    }
+
+    @Test
+    public void tagNamesIgnoreTheDefaultLocale() {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            // in Turkish, "I".toLowerCase() is a dotless i, which would miss <i> and cite
+            HtmlSanitizer sanitizer = HtmlSanitizer.basic();
+            assertEquals("<i>x</i>", sanitizer.sanitize("<I>x</I>"));
+            assertEquals("<q cite=\"http://example.com\">q</q>", sanitizer.sanitize("<Q CITE=\"http://example.com\">q</Q>"));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void deepNestingIsCappedAndLinear() {
+        int n = 200_000;
+        String nested = repeat("<b>", n) + "x" + repeat("</b>", n);
+        String expected = repeat("<b>", HtmlSanitizer.DEFAULT_MAX_DEPTH) + "x" + repeat("</b>", HtmlSanitizer.DEFAULT_MAX_DEPTH);
+        assertEquals(expected, BASIC.sanitize(nested));
+
+        String[] pathological = {
+            repeat("<b><i>", n) + repeat("</x>", n),
+            repeat("<!--", n),
+            "<script>" + repeat("</scrip", n),
+            repeat("<a href='", n),
+            repeat("&#x", n),
+            repeat("<", n),
+        };
+        for (String input : pathological) {
+            long start = System.nanoTime();
+            BASIC.sanitize(input);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(input.substring(0, 12) + "... took " + millis + " ms", millis < 2_000);
+        }
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) sb.append(s);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.app.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * HtmlTemplate against the String building it replaced: {double:N} slots must
+ * match String.format(Locale.ROOT, "%.Nf", v) on both the fast path and the
+ * rounding-tie path, signs of zero included.
+ */
+public class HtmlTemplateTest {
+
+    private static final HtmlTemplate[] FIXED = new HtmlTemplate[7];
+
+    static {
+        for (int places = 0; places < FIXED.length; places++) {
+            FIXED[places] = HtmlTemplate.compile("<b>{double:" + places + "}</b>");
+        }
+    }
+
+    @Test
+    public void signedZeroes() throws IOException {
+        double[] values = { 0.0, -0.0, -0.0004999999, -0.0005, -0.00049, -2.5e-7, 2.5e-7, -0.4999, -0.5, -1e-300 };
+        for (double v : values) {
+            for (int places = 0; places < FIXED.length; places++) {
+                check(v, places);
+            }
+        }
+    }
+
+    @Test
+    public void roundingTies() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int places = random.nextInt(FIXED.length);
+            long scale = (long) Math.pow(10, places);
+            // k + 0.5 units of the last place, nudged by at most a few ulps either way
+            double v = (random.nextInt(2_000_000) - 1_000_000 + 0.5) / scale;
+            for (int nudge = random.nextInt(5) - 2; nudge != 0; nudge += nudge > 0 ? -1 : 1) {
+                v = nudge > 0 ? Math.nextUp(v) : Math.nextDown(v);
+            }
+            check(v, places);
+        }
+    }
+
+    @Test
+    public void randomValues() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            double v = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 6);
+            check(v, random.nextInt(FIXED.length));
+        }
+        check(Double.NaN, 2);
+        check(Double.NEGATIVE_INFINITY, 2);
+        check(1e300, 2);
+    }
+
+    @Test
+    public void integerAndTextSlots() throws IOException {
+        HtmlTemplate t = HtmlTemplate.compile("<div class=\"status-{int}\" title=\"{text}\">{long}</div>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        t.render(out).value(-3).text("a<b & \"c\" é😀").value(Long.MIN_VALUE).finish();
+        assertEquals("<div class=\"status--3\" title=\"" + Sanitizer.escapeHtml("a<b & \"c\" é😀") + "\">"
+                + Long.MIN_VALUE + "</div>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void check(double v, int places) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FIXED[places].render(out).value(v).finish();
+        String expected = "<b>" + String.format(Locale.ROOT, "%." + places + "f", v) + "</b>";
+        String actual = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        if (!expected.equals(actual)) assertEquals(v + " to " + places + " places", expected, actual);
+    }
+}
@@ -0,0 +1,143 @@
+package com.app.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * TextKernel results against straightforward reference loops, and bytes
+ * allocated per call measured with com.sun.management.ThreadMXBean: the
+ * kernels must allocate nothing, and Sanitizer.extractNumeric nothing but its
+ * result. Allocation tests are skipped on JVMs without per-thread allocation
+ * accounting.
+ */
+public class TextKernelTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 10_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    private static volatile int sink;
+
+    @BeforeClass
+    public static void allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    // Sanitizer.extractNumeric before the port
+    static String extractNumericBaseline(String input) {
+        if (input == null) return "0";
+        StringBuilder sb = new StringBuilder();
+        for (char c : input.toCharArray()) {
+            if (Character.isDigit(c)) sb.append(c);
+        }
+        return sb.length() > 0 ? sb.toString() : "0";
+    }
+
+    @Test
+    public void extractNumericMatchesBaseline() {
+        String[] cases = { null, "", "abc", "123", "a1", "1a", "a1b2c3", "x 12-34 y", "١٢x٣", "--12345--" };
+        for (String s : cases) {
+            assertEquals(String.valueOf(s), extractNumericBaseline(s), Sanitizer.extractNumeric(s));
+        }
+        Random random = new Random(36);
+        String alphabet = "0123456789ab -٠٩é";
+        for (int i = 0; i < 50_000; i++) {
+            // lengths past the scratch buffer size take the fallback path too
+            int n = random.nextInt(i % 100 == 0 ? 600 : 24);
+            StringBuilder sb = new StringBuilder(n);
+            for (int j = 0; j < n; j++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String s = sb.toString();
+            assertEquals(s, extractNumericBaseline(s), Sanitizer.extractNumeric(s));
+        }
+        String digits = "0123456789";
+        assertSame(digits, Sanitizer.extractNumeric(digits));
+    }
+
+    @Test
+    public void kernelsMatchReferenceLoops() throws IOException {
+        String s = "Jo-hn  o'Neil 4111-1111 été";
+        assertEquals(4 + 1 + 1 + 1 + 1 + 1 + 1 + 1, TextKernel.digitSum(s));
+        assertEquals(8, TextKernel.countDigits(s, 0, s.length()));
+        assertEquals(s.indexOf('4'), TextKernel.indexOfDigit(s, 0));
+        assertEquals(-1, TextKernel.indexOfDigit("abc", 0));
+
+        char[] buf = new char[s.length()];
+        assertEquals("41111111", new String(buf, 0, TextKernel.extractDigits(s, buf, 0)));
+        assertEquals("Jo4é", new String(buf, 0, TextKernel.initials(s, ' ', buf, 0)));
+        assertEquals("Jo-hn  oNeil 4111-1111 été", new String(buf, 0, TextKernel.filterLettersOrDigits(s, " -", buf, 0)));
+
+        StringBuilder out = new StringBuilder();
+        TextKernel.appendLettersOrDigits(s, " -", out);
+        assertEquals("Jo-hn  oNeil 4111-1111 été", out.toString());
+    }
+
+    @Test
+    public void kernelsDoNotAllocate() throws IOException {
+        assumeTrue(threads != null);
+        String s = "Jo-hn  o'Neil 4111-1111 été <b>markup</b>";
+        char[] buf = new char[s.length()];
+        StringBuilder out = new StringBuilder(s.length());
+
+        assertEquals(0, bytesPerCall(() -> sink = TextKernel.digitSum(s)), 0.5);
+        assertEquals(0, bytesPerCall(() -> sink = TextKernel.countDigits(s, 0, s.length())), 0.5);
+        assertEquals(0, bytesPerCall(() -> sink = TextKernel.extractDigits(s, buf, 0)), 0.5);
+        assertEquals(0, bytesPerCall(() -> sink = TextKernel.initials(s, ' ', buf, 0)), 0.5);
+        assertEquals(0, bytesPerCall(() -> sink = TextKernel.filterLettersOrDigits(s, " -", buf, 0)), 0.5);
+        assertEquals(0, bytesPerCall(() -> {
+            out.setLength(0);
+            TextKernel.appendLettersOrDigits(s, " -", out);
+        }), 0.5);
+    }
+
+    @Test
+    public void extractNumericAllocatesOnlyItsResult() throws IOException {
+        assumeTrue(threads != null);
+        assertEquals(0, bytesPerCall(() -> sink = Sanitizer.extractNumeric("4111111111111111").length()), 0.5);
+        assertEquals(0, bytesPerCall(() -> sink = Sanitizer.extractNumeric("no digits at all").length()), 0.5);
+
+        // 1000 chars with ten scattered digits: the old code allocated a char[1000] (~2 KB) per
+        // call before building the result; now only the 10-char result string remains
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10; i++) sb.append(repeat('x', 99)).append((char) ('0' + i));
+        String scattered = sb.toString();
+        double perCall = bytesPerCall(() -> sink = Sanitizer.extractNumeric(scattered).length());
+        assertTrue(perCall + " bytes per call", perCall < 128);
+
+        String run = repeat('x', 500) + "0123456789" + repeat('y', 490);
+        perCall = bytesPerCall(() -> sink = Sanitizer.extractNumeric(run).length());
+        assertTrue(perCall + " bytes per call", perCall < 128);
+    }
+
+    private interface Call {
+        void run() throws IOException;
+    }
+
+    private static double bytesPerCall(Call call) throws IOException {
+        for (int i = 0; i < WARMUP; i++) call.run();
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < MEASURED; i++) call.run();
+        long after = threads.getThreadAllocatedBytes(id);
+        return (double) (after - before) / MEASURED;
+    }
+
+    private static String repeat(char c, int times) {
+        char[] chars = new char[times];
+        java.util.Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
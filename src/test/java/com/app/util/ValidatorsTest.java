@@ -0,0 +1,128 @@
+package com.app.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Regex oracle for Validators: every check must agree with the Pattern it
+ * replaced (the first three were Sanitizer's, the last two are the
+ * InputController / DisplayController guards isSafeId and isSafeText mirror).
+ */
+public class ValidatorsTest {
+
+    private static final Pattern NUMERIC = Pattern.compile("^[0-9]+$");
+    private static final Pattern ALPHANUMERIC = Pattern.compile("^[a-zA-Z0-9]+$");
+    private static final Pattern EMAIL = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+    private static final Pattern SAFE_ID = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    private static final Pattern SAFE_TEXT = Pattern.compile("^[a-zA-Z0-9_\\s-]+$");
+
+    private static final String[] EMAIL_EDGE_CASES = {
+        "", "@", "a@", "@b.co", "a@b", "a@b.", "a@.co", "a@b.c", "a@b.co", "a@b.CO", "a@b..co",
+        "a@b.co.", "a@b.co.u", "a@b.co.uk", "a@-.co", "a@..co", "a@b.c0m", "a@b.c-m", "a@b.com1",
+        "a@@b.co", "a@b@c.co", "a.b@c.co", ".@b.co", "%+-._@b.co", "x.y+z@ex-ample.co.uk",
+        "a@b.co\n", "\na@b.co", "a@b.co ", " a@b.co", "a b@c.co", "a@b c.co", "a@b.c o",
+        "a@b.\u00e9\u00e9", "\u00e9@b.co", "a@\u00e9.co", "a@b.co\u0000", "a@b.cococococococo",
+        "a@1.22", "a@1.aa", "a@b.-co", "a@b.co-", "a@b_c.co", "a_b@c.co",
+    };
+
+    // Characters each class distinguishes, plus whitespace variants, non-ASCII and line terminators
+    private static final String ALPHABET = "aZm09._%+-@ \t\n\u000B\f\r#\u00e9<\u0085\u2028\u0660";
+
+    @Test
+    public void nullAndEmpty() {
+        assertFalse(Validators.isNumeric(null));
+        assertFalse(Validators.isAlphanumeric(null));
+        assertFalse(Validators.isSafeId(null));
+        assertFalse(Validators.isSafeText(null));
+        assertFalse(Validators.isValidEmail(null));
+        assertAllAgree("");
+    }
+
+    @Test
+    public void emailEdgeCases() {
+        for (String s : EMAIL_EDGE_CASES) {
+            assertAllAgree(s);
+        }
+    }
+
+    @Test
+    public void randomStrings() {
+        Random random = new Random(33);
+        for (int i = 0; i < 300_000; i++) {
+            int n = random.nextInt(14);
+            StringBuilder sb = new StringBuilder(n);
+            for (int j = 0; j < n; j++) {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            assertAllAgree(sb.toString());
+        }
+    }
+
+    // Well-formed addresses with one or two random edits, so the email DFA is exercised
+    // near its accepting states rather than mostly rejecting early
+    @Test
+    public void mutatedEmails() {
+        Random random = new Random(330);
+        String local = "abc.d_e%f+g-h0";
+        String domain = "ex-am.ple9";
+        String tld = "abcXYZ";
+        int accepted = 0;
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            append(sb, local, 1 + random.nextInt(4), random);
+            sb.append('@');
+            append(sb, domain, 1 + random.nextInt(5), random);
+            sb.append('.');
+            append(sb, tld, random.nextInt(4), random);
+            for (int edits = random.nextInt(3); edits > 0; edits--) {
+                int at = random.nextInt(sb.length() + 1);
+                char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                if (random.nextBoolean() || at == sb.length()) {
+                    sb.insert(at, c);
+                } else {
+                    sb.deleteCharAt(at);
+                }
+            }
+            String s = sb.toString();
+            assertAllAgree(s);
+            if (EMAIL.matcher(s).matches()) accepted++;
+        }
+        // the generator must actually produce a good share of valid addresses
+        assertTrue("only " + accepted + " valid addresses generated", accepted > 50_000);
+    }
+
+    @Test
+    public void acceptsCharSequences() {
+        assertTrue(Validators.isValidEmail(new StringBuilder("x.y+z@ex-ample.co.uk")));
+        assertTrue(Validators.isNumeric(new StringBuilder("0123")));
+    }
+
+    private static void append(StringBuilder sb, String chars, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+    }
+
+    private static void assertAllAgree(String s) {
+        agree("numeric", NUMERIC, Validators.isNumeric(s), s);
+        agree("alphanumeric", ALPHANUMERIC, Validators.isAlphanumeric(s), s);
+        agree("safe id", SAFE_ID, Validators.isSafeId(s), s);
+        agree("safe text", SAFE_TEXT, Validators.isSafeText(s), s);
+        agree("email", EMAIL, Validators.isValidEmail(s), s);
+        agree("Sanitizer email", EMAIL, Sanitizer.isValidEmail(s), s);
+        agree("Sanitizer numeric", NUMERIC, Sanitizer.isNumeric(s), s);
+        agree("Sanitizer alphanumeric", ALPHANUMERIC, Sanitizer.isAlphanumeric(s), s);
+    }
+
+    private static void agree(String check, Pattern oracle, boolean actual, String s) {
+        boolean expected = oracle.matcher(s).matches();
+        if (expected != actual) {
+            assertEquals(check + " for \"" + s.replace("\n", "\\n").replace("\r", "\\r") + "\"", expected, actual);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.app.web;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * AsyncJdbcExecutor against a fake container: the captured body must go out
+ * through the WriteListener in isReady() sized steps, and a timeout, a full
+ * executor or a failing handler must each end in exactly one complete() with
+ * the right status and counter. Streamed handlers must be held back while the
+ * client is not reading and fail once it is gone.
+ */
+public class AsyncJdbcExecutorTest {
+
+    private ExecutorService executor;
+    private AsyncJdbcExecutor async;
+
+    @Before
+    public void start() {
+        executor = Executors.newSingleThreadExecutor();
+        async = new AsyncJdbcExecutor(executor, 1_000);
+    }
+
+    @After
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void bodyIsWrittenWhenTheStreamIsReady() throws Exception {
+        Container c = new Container();
+        c.readyWrites = 1;
+        byte[] expected = new byte[20_000];
+        for (int i = 0; i < expected.length; i++) expected[i] = (byte) ('a' + i % 26);
+        async.dispatch(c.request(), c.response(), (req, resp) -> {
+            resp.setContentType("text/plain; charset=UTF-8");
+            resp.setHeader("X-Rows", "3");
+            resp.getOutputStream().write(expected);
+        });
+        c.awaitWriteListener();
+
+        c.drainUntilComplete();
+        assertArrayEquals(expected, c.body.toByteArray());
+        assertEquals(expected.length, c.contentLength);
+        assertEquals("3", c.headers.get("X-Rows"));
+        assertEquals("text/plain; charset=UTF-8", c.contentType);
+        assertTrue("written in one go", c.writes > 1);
+        assertTrue(c.closed);
+        assertEquals(1, c.completions);
+        assertEquals(1_000, c.timeout);
+    }
+
+    @Test
+    public void timeoutWhileRunningSends503AndInterruptsTheHandler() throws Exception {
+        Container c = new Container();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        async.dispatch(c.request(), c.response(), (req, resp) -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            resp.getWriter().write("late");
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        c.listener.onTimeout(null);
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, c.error);
+        assertEquals(1, c.completions);
+        assertNull("late body written", c.writeListener);
+        assertEquals(0, c.body.size());
+        assertEquals(1, async.getTimeoutCount());
+    }
+
+    @Test
+    public void timeoutWhileWritingStopsTheWriteLoop() throws Exception {
+        Container c = new Container();
+        c.readyWrites = 1;
+        async.dispatch(c.request(), c.response(), (req, resp) -> resp.getOutputStream().write(new byte[50_000]));
+        c.awaitWriteListener();
+        c.readyWrites = 1;
+        c.writeListener.onWritePossible();
+        int sent = c.body.size();
+
+        c.listener.onTimeout(null);
+        c.readyWrites = 100;
+        c.writeListener.onWritePossible();
+
+        assertEquals(1, c.completions);
+        assertEquals(sent, c.body.size());
+        assertEquals(50_000, c.contentLength);
+        assertEquals(1, async.getTimeoutCount());
+        assertEquals(-1, c.error);
+    }
+
+    @Test
+    public void fullExecutorSends503() throws Exception {
+        executor.shutdown();
+        Container c = new Container();
+        async.dispatch(c.request(), c.response(), (req, resp) -> resp.getWriter().write("never"));
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, c.error);
+        assertEquals(1, c.completions);
+
+        Container streamed = new Container();
+        async.stream(streamed.request(), streamed.response(), (req, resp) -> resp.getWriter().write("never"));
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, streamed.error);
+        assertEquals(1, streamed.completions);
+        assertEquals(2, async.getRejectedCount());
+    }
+
+    @Test
+    public void failingHandlerSends500AndNothingElse() throws Exception {
+        Container c = new Container();
+        async.dispatch(c.request(), c.response(), (req, resp) -> {
+            resp.setHeader("X-Partial", "yes");
+            resp.getWriter().write("half a page");
+            throw new SQLException("connection reset");
+        });
+        c.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, c.error);
+        assertEquals(1, c.completions);
+        assertEquals(0, c.body.size());
+        assertNull(c.headers.get("X-Partial"));
+        assertEquals(1, async.getFailureCount());
+
+        // a timeout after the failure has nothing left to do
+        c.listener.onTimeout(null);
+        assertEquals(1, c.completions);
+        assertEquals(0, async.getTimeoutCount());
+    }
+
+    @Test
+    public void handlerErrorIsReplayed() throws Exception {
+        Container c = new Container();
+        async.dispatch(c.request(), c.response(), (req, resp) -> resp.sendError(HttpServletResponse.SC_NOT_FOUND));
+        c.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, c.error);
+        assertEquals(1, c.completions);
+        assertNull(c.writeListener);
+    }
+
+    @Test
+    public void streamedBodyWaitsForTheClient() throws Exception {
+        Container c = new Container();
+        c.readyWrites = 0;
+        AtomicInteger produced = new AtomicInteger();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) expected.append("{\"id\":").append(i).append("}\n");
+        async.stream(c.request(), c.response(), (req, resp) -> {
+            resp.setContentType("application/x-ndjson;charset=UTF-8");
+            PrintWriter writer = resp.getWriter();
+            for (int i = 0; i < 20_000; i++) {
+                writer.write("{\"id\":" + i + "}\n");
+                produced.incrementAndGet();
+            }
+        });
+        c.awaitWriteListener();
+
+        // the client takes nothing, so the handler stops once the chunk queue is full
+        int stalled;
+        do {
+            stalled = produced.get();
+            Thread.sleep(50);
+        } while (produced.get() != stalled);
+        assertTrue(stalled + " rows buffered", stalled * 9 < 64 * 1024);
+        assertEquals(0, c.body.size());
+        assertEquals(0, c.completions);
+
+        c.drainUntilComplete();
+        assertEquals(expected.toString(), new String(c.body.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals("application/x-ndjson;charset=UTF-8", c.contentType);
+        assertEquals(-1, c.contentLength);
+        assertEquals(1, c.completions);
+    }
+
+    @Test
+    public void streamedFailureBeforeTheFirstChunkSends500() throws Exception {
+        Container c = new Container();
+        async.stream(c.request(), c.response(), (req, resp) -> {
+            resp.getWriter().write("[{\"id\":1}");
+            throw new SQLException("cursor lost");
+        });
+        c.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, c.error);
+        assertEquals(0, c.body.size());
+        assertNull(c.writeListener);
+        assertEquals(1, c.completions);
+        assertEquals(1, async.getFailureCount());
+    }
+
+    @Test
+    public void streamedFailureAfterTheFirstChunkEndsTheResponse() throws Exception {
+        Container c = new Container();
+        async.stream(c.request(), c.response(), (req, resp) -> {
+            resp.getOutputStream().write(new byte[20_000]);
+            resp.flushBuffer();
+            throw new SQLException("cursor lost");
+        });
+        c.awaitCompletion();
+        assertEquals(-1, c.error);
+        assertEquals(20_000, c.body.size());
+        assertEquals(1, c.completions);
+        assertEquals(1, async.getFailureCount());
+    }
+
+    @Test
+    public void streamedClientGoneFailsTheHandler() throws Exception {
+        Container c = new Container();
+        c.readyWrites = 0;
+        CountDownLatch failed = new CountDownLatch(1);
+        async.stream(c.request(), c.response(), (req, resp) -> {
+            try {
+                while (true) resp.getOutputStream().write(new byte[1024]);
+            } catch (IOException e) {
+                failed.countDown();
+                throw e;
+            }
+        });
+        c.awaitWriteListener();
+        c.listener.onError(new AsyncEvent(c.context, new IOException("connection reset")));
+
+        assertTrue("handler still writing", failed.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, c.completions);
+        assertEquals(0, c.body.size());
+    }
+
+    @Test
+    public void streamedHandlerErrorIsSent() throws Exception {
+        Container c = new Container();
+        async.stream(c.request(), c.response(), (req, resp) -> {
+            resp.getWriter().write("ignored");
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("ignored too");
+        });
+        c.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, c.error);
+        assertEquals(0, c.body.size());
+        assertNull(c.writeListener);
+        assertEquals(1, c.completions);
+    }
+
+    @Test
+    public void withoutAsyncSupportTheHandlerRunsInline() throws Exception {
+        Container c = new Container();
+        c.asyncSupported = false;
+        Thread[] ran = new Thread[1];
+        async.dispatch(c.request(), c.response(), (req, resp) -> {
+            ran[0] = Thread.currentThread();
+            resp.getOutputStream().write("inline".getBytes(StandardCharsets.UTF_8));
+        });
+        assertEquals(Thread.currentThread(), ran[0]);
+        assertEquals("inline", new String(c.body.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(0, c.completions);
+    }
+
+    // Request, response and AsyncContext of one exchange. isReady() answers true for
+    // readyWrites more writes and false after that.
+    private static final class Container {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Map<String, String> headers = new HashMap<>();
+        final CountDownLatch listenerSet = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile boolean asyncSupported = true;
+        volatile int readyWrites = Integer.MAX_VALUE;
+        volatile AsyncListener listener;
+        volatile WriteListener writeListener;
+        volatile int completions;
+        volatile int error = -1;
+        volatile long contentLength = -1;
+        volatile long timeout;
+        volatile String contentType;
+        volatile int writes;
+        volatile boolean closed;
+
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return readyWrites > 0;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener l) {
+                writeListener = l;
+                listenerSet.countDown();
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (completions > 0) throw new IllegalStateException("write after complete()");
+                if (readyWrites <= 0) throw new IllegalStateException("write while not ready");
+                readyWrites--;
+                writes++;
+                body.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+
+        private final AsyncContext context = (AsyncContext) Proxy.newProxyInstance(
+                AsyncContext.class.getClassLoader(), new Class<?>[] { AsyncContext.class }, (p, method, args) -> {
+            switch (method.getName()) {
+                case "addListener": listener = (AsyncListener) args[0]; return null;
+                case "setTimeout": timeout = (Long) args[0]; return null;
+                case "complete":
+                    completions++;
+                    completed.countDown();
+                    return null;
+                default: return null;
+            }
+        });
+
+        HttpServletRequest request() {
+            return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                    new Class<?>[] { HttpServletRequest.class }, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "isAsyncSupported": return asyncSupported;
+                    case "startAsync": return context;
+                    default: return null;
+                }
+            });
+        }
+
+        HttpServletResponse response() {
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] { HttpServletResponse.class }, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "getCharacterEncoding": return "UTF-8";
+                    case "isCommitted": return error >= 0 || body.size() > 0;
+                    case "getOutputStream": return stream;
+                    case "setContentLength": contentLength = (Integer) args[0]; return null;
+                    case "setContentType": contentType = (String) args[0]; return null;
+                    case "setHeader": headers.put((String) args[0], (String) args[1]); return null;
+                    case "sendError": error = (Integer) args[0]; return null;
+                    case "containsHeader": return false;
+                    default: return null;
+                }
+            });
+        }
+
+        // Each onWritePossible writes until isReady() turns false, as a container would
+        void drainUntilComplete() throws IOException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (completions == 0) {
+                assertTrue("not completed", System.nanoTime() < deadline);
+                readyWrites = 1;
+                writeListener.onWritePossible();
+                Thread.yield();
+            }
+        }
+
+        void awaitWriteListener() throws InterruptedException {
+            assertTrue("no WriteListener registered", listenerSet.await(10, TimeUnit.SECONDS));
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            assertTrue("not completed", completed.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.app.web;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+
+/**
+ * What reaches the response from BufferedResponseWriter on a finished body, a
+ * body whose rendering throws, and a response whose Writer is already taken.
+ */
+public class BufferedResponseWriterTest {
+
+    @Test
+    public void finishedBodyIsSentWithContentLength() throws IOException {
+        FakeResponse resp = new FakeResponse();
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp.proxy())) {
+            out.write("<p>café ");
+            out.print(-42L);
+            out.write(" 😀</p>");
+            out.finish();
+        }
+        byte[] expected = "<p>café -42 😀</p>".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, resp.body.toByteArray());
+        assertEquals(expected.length, resp.contentLength);
+        assertEquals(1, resp.writes);
+    }
+
+    @Test
+    public void failedBodyIsNotCommitted() {
+        FakeResponse resp = new FakeResponse();
+        try {
+            try (BufferedResponseWriter out = new BufferedResponseWriter(resp.proxy())) {
+                for (int i = 0; i < 100; i++) {
+                    if (i == 50) throw new IllegalStateException("row 50");
+                    out.write("<li>");
+                    out.print(i);
+                    out.write("</li>");
+                }
+                out.finish();
+            }
+            fail("failure swallowed");
+        } catch (IllegalStateException | IOException expected) {
+            assertEquals("row 50", expected.getMessage());
+        }
+        assertEquals(0, resp.body.size());
+        assertEquals(-1, resp.contentLength);
+    }
+
+    @Test
+    public void failureAfterFlushSendsNoMoreAndNoLength() {
+        FakeResponse resp = new FakeResponse();
+        try {
+            try (BufferedResponseWriter out = new BufferedResponseWriter(resp.proxy(), 64)) {
+                out.write("first part that is flushed");
+                out.flush();
+                out.write("second part that must not be sent");
+                throw new IOException("client gone");
+            }
+        } catch (IOException expected) {
+            assertEquals("client gone", expected.getMessage());
+        }
+        assertEquals("first part that is flushed", new String(resp.body.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(-1, resp.contentLength);
+    }
+
+    @Test
+    public void largeBodyDrainsAtThreshold() throws IOException {
+        FakeResponse resp = new FakeResponse();
+        StringBuilder expected = new StringBuilder();
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp.proxy())) {
+            for (int i = 0; i < 5_000; i++) {
+                out.write("<td>é");
+                out.print(i);
+                expected.append("<td>é").append(i);
+            }
+            out.finish();
+        }
+        assertEquals(expected.toString(), new String(resp.body.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue(resp.writes > 1);
+        assertEquals(-1, resp.contentLength);
+    }
+
+    @Test
+    public void usesResponseWriterWhenAlreadyTaken() throws IOException {
+        FakeResponse resp = new FakeResponse();
+        resp.proxy().getWriter().write("<!-- header -->");
+        try (BufferedResponseWriter out = new BufferedResponseWriter(resp.proxy())) {
+            out.write("<b>");
+            out.print(7);
+            out.write("</b>");
+            out.finish();
+        }
+        assertEquals("<!-- header --><b>7</b>", resp.text.toString());
+        assertEquals(-1, resp.contentLength);
+    }
+
+    private static final class FakeResponse {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final StringWriter text = new StringWriter();
+        long contentLength = -1;
+        int writes;
+        boolean writerTaken;
+
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override public boolean isReady() { return true; }
+            @Override public void setWriteListener(WriteListener listener) { }
+            @Override public void write(int b) { body.write(b); writes++; }
+            @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); writes++; }
+        };
+        private final PrintWriter writer = new PrintWriter(text);
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] { HttpServletResponse.class }, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "getCharacterEncoding": return "UTF-8";
+                    case "isCommitted": return body.size() > 0;
+                    case "setContentLength": contentLength = (Integer) args[0]; return null;
+                    case "getOutputStream":
+                        if (writerTaken) throw new IllegalStateException("getWriter() already called");
+                        return stream;
+                    case "getWriter":
+                        writerTaken = true;
+                        return writer;
+                    default: return null;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.app.web;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+
+/**
+ * CompressionFilter bodies decoded with GZIPInputStream and InflaterInputStream
+ * against the bytes the servlet wrote, over random sizes, write splits and
+ * flushes, plus Accept-Encoding negotiation and the getWriter/getOutputStream
+ * exclusivity the wrapper has to keep.
+ */
+public class CompressionFilterTest {
+
+    @Test
+    public void randomBodiesRoundTrip() throws Exception {
+        Random random = new Random(43);
+        for (int i = 0; i < 500; i++) {
+            String encoding = random.nextBoolean() ? "gzip" : "deflate";
+            int minSize = random.nextInt(3) == 0 ? 0 : random.nextInt(4096);
+            CompressionFilter filter = new CompressionFilter(random.nextInt(10), minSize, 2);
+            byte[] body = randomBody(random, i % 50 == 0 ? 200_000 : 6_000);
+            boolean[] flushed = { false };
+
+            FakeResponse resp = new FakeResponse();
+            filter.doFilter(request(encoding), resp.proxy(), (req, res) -> {
+                ServletOutputStream out = res.getOutputStream();
+                for (int off = 0; off < body.length; ) {
+                    int len = Math.min(body.length - off, random.nextInt(3) == 0 ? 1 : random.nextInt(3000));
+                    if (len == 1) {
+                        out.write(body[off]);
+                    } else {
+                        out.write(body, off, len);
+                    }
+                    off += len;
+                    if (random.nextInt(20) == 0) {
+                        flushed[0] |= off <= minSize;
+                        out.flush();
+                    }
+                }
+            });
+
+            String message = "run " + i + ": " + encoding + ", minSize " + minSize + ", " + body.length + " bytes";
+            if (body.length <= minSize && !flushed[0]) {
+                assertNull(message, resp.headers.get("Content-Encoding"));
+                assertEquals(message, body.length, resp.contentLength);
+                assertArrayEquals(message, body, resp.body.toByteArray());
+            } else if (resp.headers.get("Content-Encoding") == null) {
+                // a flush before minSize commits the response uncompressed
+                assertTrue(message, flushed[0]);
+                assertArrayEquals(message, body, resp.body.toByteArray());
+            } else {
+                assertEquals(message, encoding, resp.headers.get("Content-Encoding"));
+                assertArrayEquals(message, body, decode(encoding, resp.body.toByteArray()));
+            }
+        }
+    }
+
+    @Test
+    public void writerBodyRoundTrips() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) text.append("<td>café ").append(i).append(" 😀</td>");
+        for (String encoding : new String[] { "gzip", "deflate" }) {
+            FakeResponse resp = new FakeResponse();
+            new CompressionFilter().doFilter(request(encoding), resp.proxy(), (req, res) -> res.getWriter().write(text.toString()));
+            assertEquals(encoding, resp.headers.get("Content-Encoding"));
+            assertEquals(text.toString(), new String(decode(encoding, resp.body.toByteArray()), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void negotiation() {
+        assertNull(CompressionFilter.negotiate(null));
+        assertNull(CompressionFilter.negotiate("br, identity"));
+        assertNull(CompressionFilter.negotiate("gzip;q=0, deflate;q=0"));
+        assertEquals("gzip", CompressionFilter.negotiate("deflate, gzip"));
+        assertEquals("deflate", CompressionFilter.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals("deflate", CompressionFilter.negotiate("gzip;q=0, *"));
+        assertEquals("gzip", CompressionFilter.negotiate("x-gzip; Q=1"));
+        assertEquals("deflate", CompressionFilter.negotiate("gzip;q=bad, deflate"));
+    }
+
+    @Test
+    public void negotiationIgnoresTheDefaultLocale() {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            // in Turkish, "GZIP".toLowerCase() has a dotless i
+            assertEquals("gzip", CompressionFilter.negotiate("GZIP"));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void writerAndStreamAreExclusive() throws Exception {
+        FilterChain streamThenWriter = (req, res) -> {
+            res.getOutputStream();
+            try {
+                res.getWriter();
+                fail("getWriter() after getOutputStream()");
+            } catch (IllegalStateException expected) {
+            }
+        };
+        FilterChain writerThenStream = (req, res) -> {
+            res.getWriter();
+            try {
+                res.getOutputStream();
+                fail("getOutputStream() after getWriter()");
+            } catch (IllegalStateException expected) {
+            }
+        };
+        new CompressionFilter().doFilter(request("gzip"), new FakeResponse().proxy(), streamThenWriter);
+        new CompressionFilter().doFilter(request("gzip"), new FakeResponse().proxy(), writerThenStream);
+    }
+
+    private static byte[] decode(String encoding, byte[] compressed) throws IOException {
+        InputStream in = encoding.equals("gzip")
+                ? new GZIPInputStream(new ByteArrayInputStream(compressed))
+                : new InflaterInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = in.read(buf)) > 0; ) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    // Mostly repetitive text so the deflater has something to do, with random bytes mixed in
+    private static byte[] randomBody(Random random, int maxSize) {
+        byte[] body = new byte[random.nextInt(maxSize)];
+        byte[] words = "select id, name from entities where status = ? ".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < body.length; i++) {
+            body[i] = random.nextInt(8) == 0 ? (byte) random.nextInt(256) : words[i % words.length];
+        }
+        return body;
+    }
+
+    private static HttpServletRequest request(String acceptEncoding) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (p, method, args) -> {
+            switch (method.getName()) {
+                case "getHeader": return "Accept-Encoding".equals(args[0]) ? acceptEncoding : null;
+                case "getServletPath": return "/export";
+                case "isAsyncStarted": return false;
+                default: return null;
+            }
+        });
+    }
+
+    private static final class FakeResponse {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Map<String, String> headers = new HashMap<>();
+        long contentLength = -1;
+        boolean committed;
+        boolean writerTaken;
+
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override public boolean isReady() { return true; }
+            @Override public void setWriteListener(WriteListener listener) { }
+            @Override public void write(int b) { body.write(b); committed = true; }
+            @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); committed = true; }
+            @Override public void flush() { committed = true; }
+        };
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] { HttpServletResponse.class }, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "getCharacterEncoding": return "UTF-8";
+                    case "isCommitted": return committed;
+                    case "containsHeader": return headers.containsKey(args[0]);
+                    case "setHeader":
+                    case "addHeader":
+                        if (!committed) headers.put((String) args[0], (String) args[1]);
+                        return null;
+                    case "setContentLength": contentLength = (Integer) args[0]; return null;
+                    case "setContentLengthLong": contentLength = (Long) args[0]; return null;
+                    case "getOutputStream":
+                        if (writerTaken) throw new IllegalStateException("getWriter() already called");
+                        return stream;
+                    case "getWriter":
+                        writerTaken = true;
+                        return new PrintWriter(body);
+                    default: return null;
+                }
+            });
+        }
+    }
+}